@@ -0,0 +1,141 @@
+package flexbox;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class BatchPricer {
+
+    /**
+     * Number of quote lines priced together by one task.
+     */
+    public static final int CHUNK_SIZE=QuoteReader.CHUNK_ROWS;
+
+    /**
+     * Header written before the results.
+     */
+    public static final String HEADER="line,type,unit(£),total(£)";
+
+    /**
+     * Ordering system used to check and make the boxes, only read by the tasks.
+     */
+    private final OrderingSystem orderingSystem;
+
+    /**
+     * Number of threads pricing chunks at the same time.
+     */
+    private final int threads;
+
+    /**
+     * Constructor for BatchPricer.
+     * The batch pricer reads quote lines, prices them with the box cost model on several threads
+     * and writes one result per line in the input order. Lines are read and parsed like the rows
+     * of an order import. At most two chunks per thread are held in memory, so memory use does not
+     * depend on the size of the input.
+     * @param threads int number of pricing threads, at least 1.
+     */
+    public BatchPricer(int threads){
+        this.orderingSystem = new OrderingSystem();
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Method to price every quote line of the input.
+     * Each line holds "length height width grade colours reinforcementBottom reinforcementCorners
+     * sealableTop quantity" separated by commas, or by semicolons, tabs or spaces if the first line
+     * uses them; flags are yes/no, true/false or 1/0. Empty lines, lines starting with # and
+     * a header line are ignored.
+     * @param in Reader with the quote lines.
+     * @param out Writer receiving "line,type,unit,total" or "line,error,reason" for each quote line.
+     * @return long number of lines that could not be priced.
+     * @throws IOException if the input can't be read or the output can't be written.
+     */
+    public long run(Reader in, Writer out) throws IOException{
+        ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "batch-pricer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Deque<Future<Chunk>> pending = new ArrayDeque<>();
+        long rejected=0;
+        try{
+            out.write(HEADER);
+            out.write('\n');
+            QuoteReader reader = new QuoteReader(in);
+            QuoteReader.Chunk rows;
+            while((rows = reader.next())!=null){
+                QuoteReader.Chunk chunk = rows;
+                pending.add(executor.submit(() -> priceChunk(chunk)));
+                while(pending.size()>=threads*2){
+                    rejected += write(pending.poll(), out);
+                }
+            }
+            while(!pending.isEmpty()){
+                rejected += write(pending.poll(), out);
+            }
+            out.flush();
+        }
+        finally{
+            executor.shutdownNow();
+        }
+        return rejected;
+    }
+
+    /**
+     * Method to wait for a chunk and write its results.
+     * @param result Future of the priced chunk.
+     * @param out Writer receiving the results.
+     * @return int number of lines of the chunk that could not be priced.
+     * @throws IOException if the output can't be written or pricing failed.
+     */
+    private static int write(Future<Chunk> result, Writer out) throws IOException{
+        try{
+            Chunk chunk = result.get();
+            out.append(chunk.text);
+            return chunk.rejected;
+        }
+        catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Batch pricing interrupted");
+        }
+        catch(ExecutionException ex){
+            throw new IOException("Batch pricing failed", ex.getCause());
+        }
+    }
+
+    /**
+     * Method to price the lines of one chunk.
+     * @param rows QuoteReader.Chunk of quote lines.
+     * @return Chunk holding the results.
+     */
+    private Chunk priceChunk(QuoteReader.Chunk rows){
+        rows.price(orderingSystem);
+        Box[] boxes = rows.getBoxes();
+        int[] quantities = rows.getQuantities();
+        Chunk chunk = new Chunk();
+        StringBuilder text = new StringBuilder(rows.getLines()*24);
+        for(int line=0;line<rows.getLines();line++){
+            String reason = rows.getRejected(line);
+            if(boxes[line]!=null){
+                long unitPrice = boxes[line].boxCostInPence();
+                text.append(rows.getFirstLine()+line).append(',').append(boxes[line].getType()).append(',');
+                Money.appendTo(text, unitPrice).append(',');
+                Money.appendTo(text, unitPrice*quantities[line]).append('\n');
+            }
+            else if(reason!=null){
+                text.append(rows.getFirstLine()+line).append(",error,").append(reason.replace(',', ';')).append('\n');
+                chunk.rejected++;
+            }
+        }
+        chunk.text = text;
+        return chunk;
+    }
+
+    /**
+     * Results of one priced chunk.
+     */
+    private static class Chunk {
+        private CharSequence text;
+        private int rejected;
+    }
+}
@@ -2,14 +2,31 @@ package flexbox;
 
 public class Box extends Cube{
     
-    protected int cardboardGrade;
-    protected int numberOfColours;
-    protected boolean reinforcementBottom;
-    protected boolean reinforcementCorners;
-    protected boolean sealableTop;
-    protected int type;
+    /**
+     * Specification shared by every box of the same configuration.
+     * @see BoxSpec Class.
+     */
+    protected final BoxSpec spec;
     public boolean confirmedOrderBox;
     
+    /**
+     * Surface area and volume calculated once when the box is created.
+     */
+    private final double surfaceArea;
+    private final double volume;
+    
+    /**
+     * Cost breakdown calculated once when the box is created.
+     * @see PricingEngine Class.
+     */
+    private final double[] costs;
+    
+    /**
+     * Price of box in whole pence, rounded once from the cost breakdown.
+     * @see Money Class.
+     */
+    private final long priceInPence;
+    
     /**
      * Class Constructor for box features.
      * @see BoxSelector class.
@@ -20,11 +37,8 @@ public class Box extends Cube{
      */
     public Box(int cardboardGrade,int numberOfColours, 
             boolean reinforcementBottom,boolean reinforcementCorners){
-        this.cardboardGrade=cardboardGrade;
-        this.numberOfColours=numberOfColours;
-        this.reinforcementBottom=reinforcementBottom;
-        this.reinforcementCorners=reinforcementCorners;
-        
+        this(0, 0, 0, new BoxSpec(cardboardGrade, numberOfColours,
+                reinforcementBottom, reinforcementCorners, false, 0));
     }
     
     /**
@@ -42,16 +56,53 @@ public class Box extends Cube{
             int numberOfColours, boolean reinforcementBottom, 
             boolean reinforcementCorners, boolean sealableTop){
         
+        this(length, height, width, BoxSpec.of(cardboardGrade, numberOfColours,
+                reinforcementBottom, reinforcementCorners, sealableTop, 0));
+    }
+    
+    /**
+     * Class Constructor for box from a shared specification.
+     * @param length double length of box.
+     * @param height double height of box. 
+     * @param width double width of box.
+     * @param spec BoxSpec features of box.
+     */
+    public Box(double length, double height, double width, BoxSpec spec){
+        
         /**
          * Inherits from Cube.
          */
         super(length,height,width);
-        this.cardboardGrade = cardboardGrade;
-        this.numberOfColours = numberOfColours;
-        this.reinforcementBottom = reinforcementBottom;
-        this.reinforcementCorners = reinforcementCorners;
-        this.sealableTop = sealableTop;
+        this.spec = spec;
         this.confirmedOrderBox=false;
+        this.surfaceArea=calcSurfaceArea();
+        this.volume=calcVolume();
+        this.costs=calculateCosts();
+        this.priceInPence=Money.toPence(costs[PricingEngine.TOTAL]);
+    }
+    
+    /**
+     * Method to get the surface area calculated when the box was created.
+     * @return double surface area of box.
+     */
+    public double getSurfaceArea(){
+        return surfaceArea;
+    }
+    
+    /**
+     * Method to get the volume calculated when the box was created.
+     * @return double volume of box.
+     */
+    public double getVolume(){
+        return volume;
+    }
+    
+    /**
+     * Method to get the shared specification of box.
+     * @return BoxSpec specification of box.
+     */
+    public BoxSpec getSpec(){
+        return spec;
     }
     
     /**
@@ -59,7 +110,7 @@ public class Box extends Cube{
      * @return integer cardboard grade
      */
     public int getCardboardGrade() {
-        return cardboardGrade;
+        return spec.getCardboardGrade();
     }
 
     /**
@@ -67,7 +118,7 @@ public class Box extends Cube{
      * @return integer number of colours.
      */
     public int getNumberOfColours() {
-        return numberOfColours;
+        return spec.getNumberOfColours();
     }
     
     /**
@@ -75,7 +126,7 @@ public class Box extends Cube{
      * @return integer type of box.
      */
     public int getType(){
-        return type;
+        return spec.getType();
     }
 
     /**
@@ -83,7 +134,7 @@ public class Box extends Cube{
      * @return boolean reinforcement bottom.
      */
     public boolean isReinforcementBottom() {
-        return reinforcementBottom;
+        return spec.isReinforcementBottom();
     }
     
     /**
@@ -91,7 +142,7 @@ public class Box extends Cube{
      * @return boolean reinforcement corners.
      */
     public boolean isReinforcementCorners() {
-        return reinforcementCorners;
+        return spec.isReinforcementCorners();
     }
 
     /**
@@ -99,7 +150,7 @@ public class Box extends Cube{
      * @return boolean sealable top.
      */
     public boolean isSealableTop() {
-        return sealableTop;
+        return spec.isSealableTop();
     }
 
     /**
@@ -122,7 +173,7 @@ public class Box extends Cube{
      * @return String value converted from boolean.
      */
     public String rBottom(){
-        if(reinforcementBottom){
+        if(spec.isReinforcementBottom()){
             return "yes";
         }
         return "no";
@@ -133,7 +184,7 @@ public class Box extends Cube{
      * @return String value converted from boolean.
      */
     public String rCorners(){
-        if(reinforcementCorners){
+        if(spec.isReinforcementCorners()){
             return "yes";
         }
         return "no";
@@ -144,25 +195,30 @@ public class Box extends Cube{
      * @return String value converted from boolean.
      */
     public String sTop(){
-        if(sealableTop){
+        if(spec.isSealableTop()){
             return "yes";
         }
         return "no";
     }
     
+    /**
+     * Method to calculate the whole cost breakdown of box.
+     * Called once from the constructors, the cost methods return the stored values.
+     * @see PricingEngine Class.
+     * @return double[] costs indexed by the PricingEngine breakdown constants.
+     */
+    private double[] calculateCosts(){
+        double[] breakdown = new double[PricingEngine.BREAKDOWN_SIZE];
+        PricingEngine.breakdown(surfaceArea, spec.getPricingKey(), breakdown);
+        return breakdown;
+    }
+    
     /**
      * Method to calculate the base cost of box.
      * @return double base price calculation.
      */
     public double baseCost(){
-        switch(cardboardGrade){
-            case 1: return calcSurfaceArea()*0.55;
-            case 2: return calcSurfaceArea()*0.65;
-            case 3: return calcSurfaceArea()*0.82;
-            case 4: return calcSurfaceArea()*0.98;
-            case 5: return calcSurfaceArea()*1.50;
-            default: return 0;
-        }
+        return costs[PricingEngine.BASE];
     }
     
     /**
@@ -170,11 +226,7 @@ public class Box extends Cube{
      * @return double colour cost calculation.
      */
     public double colourCost(){
-        switch(numberOfColours){
-            case 1: return baseCost()*0.12;
-            case 2: return baseCost()*0.15;
-            default: return 0;
-        }
+        return costs[PricingEngine.COLOUR];
     }
     
     /**
@@ -182,10 +234,7 @@ public class Box extends Cube{
      * @return double reinforcement bottom cost calculation.
      */
     public double reinforcementBottomCost(){
-        if(reinforcementBottom){
-            return baseCost()*0.13;
-        }
-        return 0;
+        return costs[PricingEngine.BOTTOM];
     }
     
     /**
@@ -193,10 +242,7 @@ public class Box extends Cube{
      * @return double reinforcement corners cost calculation.
      */
     public double reinforcementCornersCost(){
-        if(reinforcementCorners){
-            return baseCost()*0.12;
-        }
-        return 0;
+        return costs[PricingEngine.CORNERS];
     }
     
     /**
@@ -204,10 +250,7 @@ public class Box extends Cube{
      * @return double sealable top cost calculation.
      */
     public double sealableTopCost(){
-        if(sealableTop){
-            return baseCost()*0.10;
-        }
-        return 0;
+        return costs[PricingEngine.SEALABLE];
     }
     
     /**
@@ -216,13 +259,16 @@ public class Box extends Cube{
      * @return double.
      */
     public double boxCost(){
-        double cost=0;
-        cost += baseCost();
-        cost += colourCost();
-        cost += reinforcementBottomCost();
-        cost += reinforcementCornersCost();
-        cost += sealableTopCost();
-        return cost;
+        return costs[PricingEngine.TOTAL];
+    }
+    
+    /**
+     * Method to get the total cost of box in whole pence.
+     * Order totals are added in pence so they are exact in any order.
+     * @return long price of box in pence.
+     */
+    public long boxCostInPence(){
+        return priceInPence;
     }
     
     /**
@@ -231,9 +277,9 @@ public class Box extends Cube{
      */
     @Override
     public String featuresInformation(){
-        String information ="Box Type: "+Integer.toString(type);
-        information +="\n"+"Cardboard grade: "+Integer.toString(cardboardGrade);
-        information +="\n"+"Number of colours: "+Integer.toString(numberOfColours);
+        String information ="Box Type: "+Integer.toString(getType());
+        information +="\n"+"Cardboard grade: "+Integer.toString(getCardboardGrade());
+        information +="\n"+"Number of colours: "+Integer.toString(getNumberOfColours());
         information +="\n"+"Reinforcement Bottom: "+rBottom();
         information +="\n"+"Reinforcement Corners: "+rCorners();
         information +="\n"+"Sealable top: "+sTop();
@@ -248,8 +294,8 @@ public class Box extends Cube{
         String information ="Box length(m): "+String.format("%.3f",length);
         information +="\n"+"Box height(m): "+String.format("%.3f",height);
         information +="\n"+"Box width(m): "+String.format("%.3f",width);
-        information +="\n"+"Box Volume(\u33A5): "+String.format("%.3f", calcVolume());
-        information +="\n"+"Box Surface Area(\u33A1): "+String.format("%.3f", calcSurfaceArea());
+        information +="\n"+"Box Volume(\u33A5): "+String.format("%.3f", volume);
+        information +="\n"+"Box Surface Area(\u33A1): "+String.format("%.3f", surfaceArea);
         return information;
     }
     
@@ -277,17 +323,17 @@ public class Box extends Cube{
     public int hashCode(){
         final int defaultRandomNum=31;
         int result=0;
-        result += defaultRandomNum+cardboardGrade+numberOfColours;
-        if(reinforcementBottom){
+        result += defaultRandomNum+getCardboardGrade()+getNumberOfColours();
+        if(isReinforcementBottom()){
             result += 2;
         }
-        else if(!reinforcementBottom){
+        else if(!isReinforcementBottom()){
             result +=1;
         }
-        if(reinforcementCorners){
+        if(isReinforcementCorners()){
             result +=4;
         }
-        else if(!reinforcementCorners){
+        else if(!isReinforcementCorners()){
             result +=3;
         }
         return result;
@@ -304,10 +350,10 @@ public class Box extends Cube{
     public boolean equals(Object obj){
         if(obj instanceof Box){
             Box box = (Box) obj;
-            return((box.cardboardGrade==this.cardboardGrade)&&
-                    (box.numberOfColours==this.numberOfColours)&&
-                    (box.reinforcementBottom==this.reinforcementBottom)&&
-                    (box.reinforcementCorners==this.reinforcementCorners));
+            return((box.getCardboardGrade()==this.getCardboardGrade())&&
+                    (box.getNumberOfColours()==this.getNumberOfColours())&&
+                    (box.isReinforcementBottom()==this.isReinforcementBottom())&&
+                    (box.isReinforcementCorners()==this.isReinforcementCorners()));
         }
         else{
             return false;
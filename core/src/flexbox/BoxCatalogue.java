@@ -0,0 +1,266 @@
+package flexbox;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+public class BoxCatalogue {
+
+    /**
+     * Size of the type table: 3 bits of grade, 2 bits of colours and the two reinforcement flags.
+     */
+    public static final int TABLE_SIZE=1<<7;
+
+    /**
+     * Catalogue bundled with the application.
+     */
+    public static final String DEFAULT_RESOURCE="/flexbox/catalogue.rules";
+
+    /**
+     * Box types the application has a class for, BoxType1 to BoxType5.
+     */
+    public static final int BOX_TYPES=5;
+
+    /**
+     * First word of the line closing a rules file, followed by the number of rules.
+     */
+    private static final String END="end";
+
+    /**
+     * Table of box types indexed by the packed key of a combination.
+     * Combinations that can't be made hold 0. Never changed after construction.
+     */
+    private final byte[] typeTable;
+
+    /**
+     * Shared specifications of the valid boxes, two per combination of the type table:
+     * without and with sealable top.
+     */
+    private final BoxSpec[] specs;
+
+    /**
+     * Cheapest valid box offering at least the requested features, indexed like specs.
+     * Holds the spec itself for valid combinations and null when nothing covers the request.
+     */
+    private final BoxSpec[] upgrades;
+
+    /**
+     * Constructor for BoxCatalogue.
+     * A catalogue is an immutable table of the combinations that can be made,
+     * so it can be shared by every OrderingSystem and swapped as a whole.
+     * @param typeTable byte[] box types indexed by key(), copied by the constructor.
+     * @throws IllegalArgumentException if the table has the wrong size or a type without a class.
+     */
+    public BoxCatalogue(byte[] typeTable){
+        if(typeTable.length!=TABLE_SIZE){
+            throw new IllegalArgumentException("Type table must have "+TABLE_SIZE+" entries");
+        }
+        for(byte type : typeTable){
+            if(type<0||type>BOX_TYPES){
+                throw new IllegalArgumentException("Unknown box type "+type);
+            }
+        }
+        this.typeTable = typeTable.clone();
+        this.specs = new BoxSpec[TABLE_SIZE*2];
+        for(int key=0;key<TABLE_SIZE;key++){
+            if(this.typeTable[key]!=0){
+                int grade = key>>4;
+                int colours = (key>>2)&3;
+                boolean bottom = (key&2)!=0;
+                boolean corners = (key&1)!=0;
+                specs[key*2] = new BoxSpec(grade, colours, bottom, corners, false, this.typeTable[key]);
+                specs[key*2+1] = new BoxSpec(grade, colours, bottom, corners, true, this.typeTable[key]);
+            }
+        }
+        this.upgrades = new BoxSpec[TABLE_SIZE*2];
+        for(int index=0;index<upgrades.length;index++){
+            upgrades[index] = cheapestUpgrade(index);
+        }
+    }
+
+    /**
+     * Method to pack a combination of features into the index of the type table.
+     * @param cardboardGrade int Cardboard grade of box.
+     * @param numberOfColours int number of colours of box.
+     * @param reinforcementBottom boolean reinforcement bottom of box.
+     * @param reinforcementCorners boolean reinforcement corners of box.
+     * @return int index in the type table or -1 if the grade or colours are out of range.
+     */
+    public static int key(int cardboardGrade, int numberOfColours,boolean reinforcementBottom, boolean reinforcementCorners){
+        if((cardboardGrade&~7)!=0||(numberOfColours&~3)!=0){
+            return -1;
+        }
+        return (cardboardGrade<<4)|(numberOfColours<<2)|
+                (reinforcementBottom ? 2 : 0)|(reinforcementCorners ? 1 : 0);
+    }
+
+    /**
+     * Method to return the box type of a combination.
+     * @param cardboardGrade int Cardboard grade of box.
+     * @param numberOfColours int number of colours of box.
+     * @param reinforcementBottom boolean reinforcement bottom of box.
+     * @param reinforcementCorners boolean reinforcement corners of box.
+     * @return int BoxType, 0 if the box can't be made.
+     */
+    public int typeOf(int cardboardGrade, int numberOfColours,boolean reinforcementBottom, boolean reinforcementCorners){
+        int key = key(cardboardGrade,numberOfColours,reinforcementBottom,reinforcementCorners);
+        return key<0 ? 0 : typeTable[key];
+    }
+
+    /**
+     * Method to return the shared specification of a valid box.
+     * @param cardboardGrade int Cardboard grade of box.
+     * @param numberOfColours int number of colours of box.
+     * @param reinforcementBottom boolean reinforcement bottom of box.
+     * @param reinforcementCorners boolean reinforcement corners of box.
+     * @param sealableTop boolean sealable top of box.
+     * @return BoxSpec of the box, null if the box can't be made.
+     */
+    public BoxSpec specOf(int cardboardGrade, int numberOfColours,boolean reinforcementBottom,
+            boolean reinforcementCorners, boolean sealableTop){
+        int key = key(cardboardGrade,numberOfColours,reinforcementBottom,reinforcementCorners);
+        return key<0 ? null : specs[key*2+(sealableTop ? 1 : 0)];
+    }
+
+    /**
+     * Method to return the cheapest valid box offering at least the requested features:
+     * the same or a higher grade, at least as many colours and every requested reinforcement.
+     * @param cardboardGrade int Cardboard grade of box.
+     * @param numberOfColours int number of colours of box.
+     * @param reinforcementBottom boolean reinforcement bottom of box.
+     * @param reinforcementCorners boolean reinforcement corners of box.
+     * @param sealableTop boolean sealable top of box.
+     * @return BoxSpec of the suggested box, the box itself if it is valid, null if nothing covers it.
+     */
+    public BoxSpec upgradeOf(int cardboardGrade, int numberOfColours,boolean reinforcementBottom,
+            boolean reinforcementCorners, boolean sealableTop){
+        int key = key(cardboardGrade,numberOfColours,reinforcementBottom,reinforcementCorners);
+        return key<0 ? null : upgrades[key*2+(sealableTop ? 1 : 0)];
+    }
+
+    /**
+     * Method to search the cheapest valid box covering one entry of the specs table.
+     * Boxes are ranked by their combined price factor; ties keep the lowest grade.
+     * @param index int entry of the specs table.
+     * @return BoxSpec cheapest covering box or null.
+     */
+    private BoxSpec cheapestUpgrade(int index){
+        if(specs[index]!=null){
+            return specs[index];
+        }
+        int key = index>>1;
+        int sealable = index&1;
+        BoxSpec best = null;
+        for(int candidate=0;candidate<TABLE_SIZE;candidate++){
+            BoxSpec spec = specs[candidate*2+sealable];
+            boolean covers = spec!=null &&
+                    (candidate>>4)>=(key>>4) &&
+                    ((candidate>>2)&3)>=((key>>2)&3) &&
+                    (candidate&key&3)==(key&3);
+            if(covers && (best==null || spec.getPriceFactor()<best.getPriceFactor())){
+                best = spec;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Method to load the catalogue bundled with the application.
+     * @return BoxCatalogue compiled from the bundled rules.
+     * @throws IOException if the rules are missing or invalid.
+     */
+    public static BoxCatalogue loadDefault() throws IOException{
+        InputStream in = BoxCatalogue.class.getResourceAsStream(DEFAULT_RESOURCE);
+        if(in==null){
+            throw new FileNotFoundException(DEFAULT_RESOURCE);
+        }
+        return load(in);
+    }
+
+    /**
+     * Method to load a catalogue from a rules file.
+     * @param file File containing the rules.
+     * @return BoxCatalogue compiled from the rules.
+     * @throws IOException if the file can't be read or a rule is invalid.
+     */
+    public static BoxCatalogue load(File file) throws IOException{
+        return load(new FileInputStream(file));
+    }
+
+    /**
+     * Method to compile catalogue rules. Each line holds
+     * "grade colours reinforcementBottom reinforcementCorners boxType", flags as yes/no, true/false or 1/0.
+     * The last rule is followed by "end" and the number of rules, so a file read while it is
+     * still being written is refused instead of being taken for a smaller catalogue.
+     * Empty lines and lines starting with # are ignored.
+     * @param in InputStream with the rules, closed by this method.
+     * @return BoxCatalogue compiled from the rules.
+     * @throws IOException if the rules can't be read, a rule is invalid or the end line is
+     * missing or does not match the number of rules.
+     */
+    public static BoxCatalogue load(InputStream in) throws IOException{
+        byte[] table = new byte[TABLE_SIZE];
+        int rules=0;
+        int expectedRules=-1;
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))){
+            String line;
+            int lineNumber=0;
+            while((line = reader.readLine())!=null){
+                lineNumber++;
+                line = line.trim();
+                if(line.isEmpty()||line.startsWith("#")){
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                try{
+                    if(expectedRules>=0){
+                        throw new IllegalArgumentException("rule after the end line");
+                    }
+                    if(fields[0].equals(END)){
+                        if(fields.length!=2){
+                            throw new IllegalArgumentException("expected \"end\" and the number of rules");
+                        }
+                        expectedRules = Integer.parseInt(fields[1]);
+                        continue;
+                    }
+                    if(fields.length!=5){
+                        throw new IllegalArgumentException("expected 5 fields");
+                    }
+                    int key = key(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]),
+                            parseFlag(fields[2]), parseFlag(fields[3]));
+                    int type = Integer.parseInt(fields[4]);
+                    if(key<0){
+                        throw new IllegalArgumentException("value out of range");
+                    }
+                    if(type<1||type>BOX_TYPES){
+                        throw new IllegalArgumentException("box type must be between 1 and "+BOX_TYPES);
+                    }
+                    table[key] = (byte)type;
+                    rules++;
+                }
+                catch(IllegalArgumentException ex){
+                    throw new IOException("Invalid catalogue rule at line "+lineNumber+": "+ex.getMessage());
+                }
+            }
+        }
+        if(expectedRules<0){
+            throw new IOException("Catalogue has no end line, it may be incomplete");
+        }
+        if(expectedRules!=rules){
+            throw new IOException("Catalogue end line counts "+expectedRules+" rules but "+rules+" were read");
+        }
+        return new BoxCatalogue(table);
+    }
+
+    /**
+     * Method to convert a flag of a rule to boolean, written like the flags of quote lines.
+     * @param flag String yes/no, true/false or 1/0.
+     * @return boolean value of the flag.
+     */
+    static boolean parseFlag(String flag){
+        int value = QuoteReader.parseFlag(flag);
+        if(value<0){
+            throw new IllegalArgumentException("flag must be yes/no, true/false or 1/0");
+        }
+        return value==1;
+    }
+}
@@ -0,0 +1,182 @@
+package flexbox;
+
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.*;
+
+public class BoxSelector{
+    
+    /**
+     * Catalogue of valid boxes shared by every BoxSelector.
+     * Replaced as a whole, so readers always see a complete catalogue without locking.
+     */
+    private static final AtomicReference<BoxCatalogue> CATALOGUE = new AtomicReference<>(initialCatalogue());
+    
+    /**
+     * System property naming a rules file that replaces the bundled catalogue.
+     * The file is checked for changes every few seconds and reloaded when it changes.
+     * The file must end with its "end" line, see BoxCatalogue.load().
+     */
+    public static final String CATALOGUE_PROPERTY="flexbox.catalogue";
+    
+    private static final long WATCH_PERIOD_SECONDS=5;
+    
+    static{
+        String path = System.getProperty(CATALOGUE_PROPERTY);
+        if(path!=null){
+            watchCatalogue(new File(path));
+        }
+    }
+    
+    /**
+     * Constructor for box Selector.
+     * Box Selector helps to facilitate the selection of box type.
+     * All selectors read the shared catalogue, so creating one costs nothing.
+     */
+    public BoxSelector(){}
+    
+    /**
+     * Method to get the catalogue currently used by every BoxSelector.
+     * @return BoxCatalogue current catalogue.
+     */
+    public static BoxCatalogue getCatalogue(){
+        return CATALOGUE.get();
+    }
+    
+    /**
+     * Method to replace the catalogue used by every BoxSelector.
+     * Lookups already running finish with the previous catalogue.
+     * @param catalogue BoxCatalogue new catalogue.
+     */
+    public static void installCatalogue(BoxCatalogue catalogue){
+        CATALOGUE.set(catalogue);
+    }
+    
+    /**
+     * Method to compile a rules file and install it as the catalogue.
+     * The current catalogue is kept if the file is invalid.
+     * @param file File containing the rules.
+     * @throws IOException if the file can't be read or a rule is invalid.
+     */
+    public static void reloadCatalogue(File file) throws IOException{
+        installCatalogue(BoxCatalogue.load(file));
+    }
+    
+    /**
+     * Method to to check if the box is valid by checking with the catalogue.
+     * @param cardboardGrade int Cardboard grade of box.
+     * @param numberOfColours int number of colours of box.
+     * @param reinforcementBottom boolean reinforcement bottom of box.
+     * @param reinforcementCorners boolean reinforcement corners of box.
+     * @see OrderingSystem Class
+     * @return boolean indicating true if the catalogue contains the given set of constrains
+     */
+    public boolean boxIsValid(int cardboardGrade, int numberOfColours,boolean reinforcementBottom, boolean reinforcementCorners){
+        return returnBoxType(cardboardGrade,numberOfColours,reinforcementBottom,reinforcementCorners)!=0;
+    }
+    
+    /**
+     * Method to return the box type of a combination from the catalogue.
+     * @param cardboardGrade int Cardboard grade of box.
+     * @param numberOfColours int number of colours of box.
+     * @param reinforcementBottom boolean reinforcement bottom of box.
+     * @param reinforcementCorners boolean reinforcement corners of box.
+     * @see OrderingSystem Class
+     * @return Integer indicating the BoxType, 0 if the box can't be made
+     */
+    public int returnBoxType(int cardboardGrade, int numberOfColours,boolean reinforcementBottom, boolean reinforcementCorners){
+        return CATALOGUE.get().typeOf(cardboardGrade,numberOfColours,reinforcementBottom,reinforcementCorners);
+    }
+    
+    /**
+     * Method to return the shared specification of a box from the catalogue.
+     * @param cardboardGrade int Cardboard grade of box.
+     * @param numberOfColours int number of colours of box.
+     * @param reinforcementBottom boolean reinforcement bottom of box.
+     * @param reinforcementCorners boolean reinforcement corners of box.
+     * @param sealableTop boolean sealable top of box.
+     * @see OrderingSystem Class
+     * @return BoxSpec of the box, null if the box can't be made
+     */
+    public BoxSpec returnBoxSpec(int cardboardGrade, int numberOfColours,boolean reinforcementBottom,
+            boolean reinforcementCorners, boolean sealableTop){
+        return CATALOGUE.get().specOf(cardboardGrade,numberOfColours,reinforcementBottom,
+                reinforcementCorners,sealableTop);
+    }
+    
+    /**
+     * Method to suggest the cheapest box of the catalogue covering a combination that can't be made.
+     * @param cardboardGrade int Cardboard grade of box.
+     * @param numberOfColours int number of colours of box.
+     * @param reinforcementBottom boolean reinforcement bottom of box.
+     * @param reinforcementCorners boolean reinforcement corners of box.
+     * @param sealableTop boolean sealable top of box.
+     * @see BoxCatalogue Class
+     * @return BoxSpec of the suggested box, null if no box covers the combination
+     */
+    public BoxSpec returnUpgrade(int cardboardGrade, int numberOfColours,boolean reinforcementBottom,
+            boolean reinforcementCorners, boolean sealableTop){
+        return CATALOGUE.get().upgradeOf(cardboardGrade,numberOfColours,reinforcementBottom,
+                reinforcementCorners,sealableTop);
+    }
+    
+    /**
+     * Method to load the catalogue used at startup: the rules file given by the
+     * system property if there is one, otherwise the bundled rules.
+     * @return BoxCatalogue initial catalogue.
+     */
+    private static BoxCatalogue initialCatalogue(){
+        String path = System.getProperty(CATALOGUE_PROPERTY);
+        try{
+            if(path!=null){
+                return BoxCatalogue.load(new File(path));
+            }
+            return BoxCatalogue.loadDefault();
+        }
+        catch(IOException ex){
+            throw new IllegalStateException("Can't load box catalogue", ex);
+        }
+    }
+    
+    /**
+     * Method to reload the catalogue in the background when its rules file changes.
+     * A change is only taken as seen once the file has been loaded, so a file refused because
+     * it was still being written is loaded again on the next check; each refused version is
+     * logged once.
+     * @param file File containing the rules.
+     */
+    private static void watchCatalogue(final File file){
+        ScheduledExecutorService watcher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory(){
+            @Override
+            public Thread newThread(Runnable task){
+                Thread thread = new Thread(task, "catalogue-watcher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        final long[] lastModified = {file.lastModified()};
+        final long[] lastRefused = {lastModified[0]};
+        watcher.scheduleWithFixedDelay(new Runnable(){
+            @Override
+            public void run(){
+                long modified = file.lastModified();
+                if(modified==lastModified[0]){
+                    return;
+                }
+                try{
+                    reloadCatalogue(file);
+                    lastModified[0] = modified;
+                }
+                catch(IOException ex){
+                    if(modified!=lastRefused[0]){
+                        lastRefused[0] = modified;
+                        Logger.getLogger(BoxSelector.class.getName()).log(Level.WARNING,
+                                "Keeping the current catalogue, "+file+" could not be loaded", ex);
+                    }
+                }
+            }
+        }, WATCH_PERIOD_SECONDS, WATCH_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+}
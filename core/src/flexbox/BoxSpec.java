@@ -0,0 +1,149 @@
+package flexbox;
+
+public final class BoxSpec {
+
+    private final int cardboardGrade;
+    private final int numberOfColours;
+    private final boolean reinforcementBottom;
+    private final boolean reinforcementCorners;
+    private final boolean sealableTop;
+    private final int type;
+
+    /**
+     * Combination key of the PricingEngine and combined price factor per square metre.
+     */
+    private final int pricingKey;
+    private final double priceFactor;
+
+    /**
+     * Constructor for BoxSpec.
+     * A box specification holds the features shared by every box of the same configuration.
+     * Specifications are immutable; the catalogue creates one per valid configuration
+     * and every box of that configuration refers to it.
+     * @see BoxCatalogue Class.
+     * @param cardboardGrade int grade of cardboard.
+     * @param numberOfColours int number of colours.
+     * @param reinforcementBottom boolean reinforcement bottom.
+     * @param reinforcementCorners boolean reinforcement corners.
+     * @param sealableTop boolean sealable top.
+     * @param type int BoxType of the configuration, 0 if it is not in the catalogue.
+     */
+    public BoxSpec(int cardboardGrade, int numberOfColours, boolean reinforcementBottom,
+            boolean reinforcementCorners, boolean sealableTop, int type){
+        this.cardboardGrade = cardboardGrade;
+        this.numberOfColours = numberOfColours;
+        this.reinforcementBottom = reinforcementBottom;
+        this.reinforcementCorners = reinforcementCorners;
+        this.sealableTop = sealableTop;
+        this.type = type;
+        this.pricingKey = PricingEngine.key(cardboardGrade, numberOfColours,
+                reinforcementBottom, reinforcementCorners, sealableTop);
+        this.priceFactor = PricingEngine.factor(pricingKey);
+    }
+
+    /**
+     * Method to get the specification of a configuration, shared from the catalogue when possible.
+     * @param cardboardGrade int grade of cardboard.
+     * @param numberOfColours int number of colours.
+     * @param reinforcementBottom boolean reinforcement bottom.
+     * @param reinforcementCorners boolean reinforcement corners.
+     * @param sealableTop boolean sealable top.
+     * @param type int BoxType of the configuration.
+     * @return BoxSpec of the configuration.
+     */
+    public static BoxSpec of(int cardboardGrade, int numberOfColours, boolean reinforcementBottom,
+            boolean reinforcementCorners, boolean sealableTop, int type){
+        BoxSpec spec = BoxSelector.getCatalogue().specOf(cardboardGrade, numberOfColours,
+                reinforcementBottom, reinforcementCorners, sealableTop);
+        if(spec!=null && spec.type==type){
+            return spec;
+        }
+        return new BoxSpec(cardboardGrade, numberOfColours, reinforcementBottom,
+                reinforcementCorners, sealableTop, type);
+    }
+
+    /**
+     * Method to get the cardboard grade.
+     * @return integer cardboard grade
+     */
+    public int getCardboardGrade(){
+        return cardboardGrade;
+    }
+
+    /**
+     * Method to get the number of colours.
+     * @return integer number of colours.
+     */
+    public int getNumberOfColours(){
+        return numberOfColours;
+    }
+
+    /**
+     * Method to get reinforcement bottom.
+     * @return boolean reinforcement bottom.
+     */
+    public boolean isReinforcementBottom(){
+        return reinforcementBottom;
+    }
+
+    /**
+     * Method to get reinforcement corners.
+     * @return boolean reinforcement corners.
+     */
+    public boolean isReinforcementCorners(){
+        return reinforcementCorners;
+    }
+
+    /**
+     * Method to get sealable top.
+     * @return boolean sealable top.
+     */
+    public boolean isSealableTop(){
+        return sealableTop;
+    }
+
+    /**
+     * Method to get the type of box.
+     * @return integer type of box, 0 if the configuration is not in the catalogue.
+     */
+    public int getType(){
+        return type;
+    }
+
+    /**
+     * Method to get the PricingEngine key of the configuration.
+     * @see PricingEngine Class.
+     * @return int combination key, -1 if the configuration has no price.
+     */
+    public int getPricingKey(){
+        return pricingKey;
+    }
+
+    /**
+     * Method to get the combined price per square metre of the configuration.
+     * @return double price factor applied to the surface area.
+     */
+    public double getPriceFactor(){
+        return priceFactor;
+    }
+
+    /**
+     * Method to pack the features into one byte for storage, the catalogue key followed by the sealable top.
+     * @see BoxCatalogue Class.
+     * @return int code from 0 to 255, -1 if the grade or colours are out of range.
+     */
+    public int getCode(){
+        int key = BoxCatalogue.key(cardboardGrade, numberOfColours, reinforcementBottom, reinforcementCorners);
+        return key<0 ? -1 : (key<<1)|(sealableTop ? 1 : 0);
+    }
+
+    /**
+     * Method to get the specification stored as a code by getCode().
+     * @param code int code of the features.
+     * @param type int BoxType of the configuration.
+     * @return BoxSpec of the configuration.
+     */
+    public static BoxSpec ofCode(int code, int type){
+        return of((code>>5)&7, (code>>3)&3, (code&4)!=0, (code&2)!=0, (code&1)!=0, type);
+    }
+}
@@ -20,10 +20,22 @@ public class BoxType1 extends Box{
         /**
          * Inherits from box.
          */
-        super(length, height, width, cardboardGrade, numberOfColours, 
-                reinforcementBottom, reinforcementCorners, sealableTop);
-        
-        this.type=1;
+        super(length, height, width, BoxSpec.of(cardboardGrade, numberOfColours, 
+                reinforcementBottom, reinforcementCorners, sealableTop, 1));
     }
     
+    /**
+     * Constructor for BoxType1 from a shared specification.
+     * @param length double Length of box.
+     * @param height double Height of box.
+     * @param width double Width of box.
+     * @param spec BoxSpec features of box, with type 1.
+     */
+    public BoxType1(double length, double height, double width, BoxSpec spec){
+        
+        /**
+         * Inherits from box.
+         */
+        super(length, height, width, spec);
+    }
 }
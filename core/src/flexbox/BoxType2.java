@@ -21,8 +21,22 @@ public class BoxType2 extends Box{
         /**
          * Inherits from box.
          */
-        super(length, height, width, cardboardGrade, numberOfColours, 
-                reinforcementBottom, reinforcementCorners, sealableTop);
-        this.type=2;
+        super(length, height, width, BoxSpec.of(cardboardGrade, numberOfColours, 
+                reinforcementBottom, reinforcementCorners, sealableTop, 2));
     }
-}
\ No newline at end of file
+    
+    /**
+     * Constructor for BoxType2 from a shared specification.
+     * @param length double Length of box.
+     * @param height double Height of box.
+     * @param width double Width of box.
+     * @param spec BoxSpec features of box, with type 2.
+     */
+    public BoxType2(double length, double height, double width, BoxSpec spec){
+        
+        /**
+         * Inherits from box.
+         */
+        super(length, height, width, spec);
+    }
+}
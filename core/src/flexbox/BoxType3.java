@@ -21,8 +21,22 @@ public class BoxType3 extends Box{
         /**
          * Inherits from box.
          */
-        super(length, height, width, cardboardGrade, numberOfColours, 
-                reinforcementBottom, reinforcementCorners, sealableTop);
-        this.type=3;
+        super(length, height, width, BoxSpec.of(cardboardGrade, numberOfColours, 
+                reinforcementBottom, reinforcementCorners, sealableTop, 3));
+    }
+    
+    /**
+     * Constructor for BoxType3 from a shared specification.
+     * @param length double Length of box.
+     * @param height double Height of box.
+     * @param width double Width of box.
+     * @param spec BoxSpec features of box, with type 3.
+     */
+    public BoxType3(double length, double height, double width, BoxSpec spec){
+        
+        /**
+         * Inherits from box.
+         */
+        super(length, height, width, spec);
     }
 }
@@ -22,8 +22,22 @@ public class BoxType4 extends Box{
         /**
          * Inherits from box.
          */
-        super(length, height, width, cardboardGrade, numberOfColours, 
-                reinforcementBottom, reinforcementCorners, sealableTop);
-        this.type=4;
+        super(length, height, width, BoxSpec.of(cardboardGrade, numberOfColours, 
+                reinforcementBottom, reinforcementCorners, sealableTop, 4));
+    }
+    
+    /**
+     * Constructor for BoxType4 from a shared specification.
+     * @param length double Length of box.
+     * @param height double Height of box.
+     * @param width double Width of box.
+     * @param spec BoxSpec features of box, with type 4.
+     */
+    public BoxType4(double length, double height, double width, BoxSpec spec){
+        
+        /**
+         * Inherits from box.
+         */
+        super(length, height, width, spec);
     }
 }
@@ -0,0 +1,95 @@
+package flexbox;
+
+import java.util.*;
+
+public class FenwickTree {
+
+    /**
+     * Binary indexed tree, position 0 is unused.
+     */
+    private long[] tree;
+
+    /**
+     * Number of values held by the tree.
+     */
+    private int size;
+
+    /**
+     * Constructor for FenwickTree.
+     * The tree keeps prefix sums of a growing list of values, so changing a value,
+     * adding a value at the end and finding a prefix sum all take O(log n).
+     */
+    public FenwickTree(){
+        tree = new long[17];
+    }
+
+    /**
+     * Method to get the number of values held by the tree.
+     * @return int number of values.
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Method to add a value at the end of the list.
+     * @param value long value to add.
+     */
+    public void append(long value){
+        if(size+1>=tree.length){
+            tree = Arrays.copyOf(tree, tree.length*2);
+        }
+        int index = ++size;
+        tree[index] = value+prefixSum(index-1)-prefixSum(index-(index&-index));
+    }
+
+    /**
+     * Method to change one value of the list.
+     * @param position int position of the value, starting at 0.
+     * @param delta long amount added to the value.
+     */
+    public void add(int position, long delta){
+        for(int index=position+1;index<=size;index+=index&-index){
+            tree[index] += delta;
+        }
+    }
+
+    /**
+     * Method to add the first values of the list.
+     * @param count int number of values to add.
+     * @return long sum of the first count values.
+     */
+    public long prefixSum(int count){
+        long sum=0;
+        for(int index=count;index>0;index-=index&-index){
+            sum += tree[index];
+        }
+        return sum;
+    }
+
+    /**
+     * Method to find the position whose value contains the given running total.
+     * Values must not be negative.
+     * @param total long running total, starting at 1.
+     * @return int first position where the prefix sum reaches total, or size if it is never reached.
+     */
+    public int find(long total){
+        int position=0;
+        for(int step=Integer.highestOneBit(Math.max(size,1));step>0;step>>=1){
+            int next = position+step;
+            if(next<=size && tree[next]<total){
+                position = next;
+                total -= tree[next];
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Method to remove every value.
+     */
+    public void clear(){
+        Arrays.fill(tree, 0, size+1, 0);
+        size=0;
+    }
+}
@@ -0,0 +1,383 @@
+package flexbox;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class InvoiceExporter {
+
+    /**
+     * Formats the invoice and manifest can be written in.
+     */
+    public enum Format { CSV, JSON }
+
+    /**
+     * Size of the buffer handed to the channel in one write.
+     */
+    public static final int BUFFER_SIZE=64*1024;
+
+    private static final byte[] INVOICE_HEADER = ("line,first box,last box,type,length,height,width,grade,colours,"+
+            "R.Bottom,R.Corner,S.Top,quantity,unit(£),total(£)\n").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] MANIFEST_HEADER = ("Box ID,line,type,length,height,width,grade,colours,"+
+            "R.Bottom,R.Corner,S.Top,Cost(£)\n").getBytes(StandardCharsets.UTF_8);
+
+    private final OrderStore store;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private WritableByteChannel out;
+
+    /**
+     * Bytes of the row being formatted. The manifest formats the columns shared by the boxes
+     * of a line once and repeats them for every box.
+     */
+    private byte[] row = new byte[256];
+    private int rowLength;
+    private byte[] shared = new byte[256];
+    private int sharedLength;
+
+    /**
+     * Constructor for InvoiceExporter.
+     * The exporter streams the confirmed lines of an order store straight to a channel,
+     * formatting numbers into a reusable byte buffer, so memory use does not grow with the order.
+     * The store must not change while an export runs.
+     * @param store OrderStore holding the confirmed order.
+     */
+    public InvoiceExporter(OrderStore store){
+        this.store = store;
+    }
+
+    /**
+     * Method to write the invoice: one row per confirmed line with its boxes, quantity,
+     * unit price and line total, followed by the order total.
+     * @param out WritableByteChannel receiving the invoice, left open.
+     * @param format Format of the invoice.
+     * @return long number of boxes invoiced.
+     * @throws IOException if the channel can't be written.
+     */
+    public long writeInvoice(WritableByteChannel out, Format format) throws IOException{
+        start(out);
+        rowLength=0;
+        if(format==Format.CSV){
+            append(INVOICE_HEADER);
+        }
+        else{
+            append("{\"lines\":[");
+        }
+        emit();
+        long boxes=0;
+        long totalInPence=0;
+        int lineNumber=0;
+        for(int line=0;line<store.confirmedSize();line++){
+            int quantity = store.getQuantity(line);
+            if(quantity==0){
+                continue;
+            }
+            long unitPrice = store.getUnitPriceInPence(line);
+            rowLength=0;
+            if(format==Format.CSV){
+                append(++lineNumber).append(',').append(boxes+1).append(',').append(boxes+quantity).append(',');
+                appendSpec(line, false);
+                append(',').append(quantity).append(',').appendPence(unitPrice)
+                        .append(',').appendPence(unitPrice*quantity).append('\n');
+            }
+            else{
+                if(lineNumber>0){
+                    append(',');
+                }
+                append("\n{\"line\":").append(++lineNumber).append(",\"firstBox\":").append(boxes+1)
+                        .append(",\"lastBox\":").append(boxes+quantity).append(',');
+                appendSpec(line, true);
+                append(",\"quantity\":").append(quantity).append(",\"unitPrice\":").appendPence(unitPrice)
+                        .append(",\"total\":").appendPence(unitPrice*quantity).append('}');
+            }
+            emit();
+            boxes+=quantity;
+            totalInPence+=unitPrice*quantity;
+        }
+        rowLength=0;
+        if(format==Format.CSV){
+            append("total,,,,,,,,,,,,").append(boxes).append(",,").appendPence(totalInPence).append('\n');
+        }
+        else{
+            append("\n],\"quantity\":").append(boxes).append(",\"total\":").appendPence(totalInPence).append("}\n");
+        }
+        emit();
+        finish();
+        return boxes;
+    }
+
+    /**
+     * Method to write the manifest: one row per confirmed box with the columns
+     * of the complete order table, followed by the order total in JSON.
+     * @param out WritableByteChannel receiving the manifest, left open.
+     * @param format Format of the manifest.
+     * @return long number of boxes listed.
+     * @throws IOException if the channel can't be written.
+     */
+    public long writeManifest(WritableByteChannel out, Format format) throws IOException{
+        start(out);
+        rowLength=0;
+        if(format==Format.CSV){
+            append(MANIFEST_HEADER);
+        }
+        else{
+            append("{\"boxes\":[");
+        }
+        emit();
+        long boxes=0;
+        long totalInPence=0;
+        int lineNumber=0;
+        for(int line=0;line<store.confirmedSize();line++){
+            int quantity = store.getQuantity(line);
+            if(quantity==0){
+                continue;
+            }
+            long unitPrice = store.getUnitPriceInPence(line);
+            rowLength=0;
+            if(format==Format.CSV){
+                append(',').append(++lineNumber).append(',');
+                appendSpec(line, false);
+                append(',').appendPence(unitPrice).append('\n');
+            }
+            else{
+                append(",\"line\":").append(++lineNumber).append(',');
+                appendSpec(line, true);
+                append(",\"price\":").appendPence(unitPrice).append('}');
+            }
+            keepShared();
+            for(int box=0;box<quantity;box++){
+                rowLength=0;
+                if(format==Format.JSON){
+                    append(boxes>0 ? ",\n{\"box\":" : "\n{\"box\":");
+                }
+                append(++boxes);
+                emit();
+                emitShared();
+            }
+            totalInPence+=unitPrice*quantity;
+        }
+        if(format==Format.JSON){
+            rowLength=0;
+            append("\n],\"quantity\":").append(boxes).append(",\"total\":").appendPence(totalInPence).append("}\n");
+            emit();
+        }
+        finish();
+        return boxes;
+    }
+
+    /**
+     * Method to append the type, dimensions and features of a line.
+     * @param line int row of the line in the store.
+     * @param json boolean true for JSON members, false for CSV fields.
+     */
+    private void appendSpec(int line, boolean json){
+        BoxSpec spec = store.getSpec(line);
+        if(json){
+            append("\"type\":").append(spec.getType())
+                    .append(",\"length\":").appendDimension(store.getLength(line))
+                    .append(",\"height\":").appendDimension(store.getHeight(line))
+                    .append(",\"width\":").appendDimension(store.getWidth(line))
+                    .append(",\"grade\":").append(spec.getCardboardGrade())
+                    .append(",\"colours\":").append(spec.getNumberOfColours())
+                    .append(",\"reinforcementBottom\":").append(spec.isReinforcementBottom() ? "true" : "false")
+                    .append(",\"reinforcementCorners\":").append(spec.isReinforcementCorners() ? "true" : "false")
+                    .append(",\"sealableTop\":").append(spec.isSealableTop() ? "true" : "false");
+        }
+        else{
+            append(spec.getType())
+                    .append(',').appendDimension(store.getLength(line))
+                    .append(',').appendDimension(store.getHeight(line))
+                    .append(',').appendDimension(store.getWidth(line))
+                    .append(',').append(spec.getCardboardGrade())
+                    .append(',').append(spec.getNumberOfColours())
+                    .append(',').append(spec.isReinforcementBottom() ? "yes" : "no")
+                    .append(',').append(spec.isReinforcementCorners() ? "yes" : "no")
+                    .append(',').append(spec.isSealableTop() ? "yes" : "no");
+        }
+    }
+
+    /**
+     * Method to append one ASCII character to the row.
+     * @param c char to append.
+     * @return InvoiceExporter this exporter.
+     */
+    private InvoiceExporter append(char c){
+        if(rowLength==row.length){
+            row = Arrays.copyOf(row, row.length*2);
+        }
+        row[rowLength++]=(byte)c;
+        return this;
+    }
+
+    /**
+     * Method to append ASCII text to the row.
+     * @param text String without characters above 0x7F.
+     * @return InvoiceExporter this exporter.
+     */
+    private InvoiceExporter append(String text){
+        for(int i=0;i<text.length();i++){
+            append(text.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Method to append encoded bytes to the row.
+     * @param bytes byte[] to append.
+     * @return InvoiceExporter this exporter.
+     */
+    private InvoiceExporter append(byte[] bytes){
+        for(byte b : bytes){
+            append((char)(b&0xFF));
+        }
+        return this;
+    }
+
+    /**
+     * Method to append a whole number to the row without going through a String.
+     * @param value long number to append.
+     * @return InvoiceExporter this exporter.
+     */
+    private InvoiceExporter append(long value){
+        if(value<0){
+            if(value==Long.MIN_VALUE){
+                return append(Long.toString(value));
+            }
+            append('-');
+            value=-value;
+        }
+        int start = rowLength;
+        do{
+            append((char)('0'+value%10));
+            value/=10;
+        }
+        while(value>0);
+        for(int i=start, j=rowLength-1;i<j;i++, j--){
+            byte digit = row[i];
+            row[i]=row[j];
+            row[j]=digit;
+        }
+        return this;
+    }
+
+    /**
+     * Method to append pence formatted as pounds with two decimals, like Money.format.
+     * @param pence long price in pence.
+     * @return InvoiceExporter this exporter.
+     */
+    private InvoiceExporter appendPence(long pence){
+        if(pence<0){
+            append('-');
+            pence=-pence;
+        }
+        int rest = (int)(pence%Money.PENCE_PER_POUND);
+        return append(pence/Money.PENCE_PER_POUND).append('.').append((char)('0'+rest/10)).append((char)('0'+rest%10));
+    }
+
+    /**
+     * Method to append a dimension with three decimals, as String.format("%.3f") shows it in the order table.
+     * Like the formatter, values are rounded half-up on their shortest decimal representation;
+     * the rare values lying on a tie once scaled, and very large values, go through BigDecimal.
+     * @param value double dimension in metres.
+     * @return InvoiceExporter this exporter.
+     */
+    private InvoiceExporter appendDimension(double value){
+        double scaled = Math.abs(value)*1000;
+        double floor = Math.floor(scaled);
+        if(!(scaled<1e9) || Math.abs(scaled-floor-0.5)<1e-6){
+            if(Double.isNaN(value)||Double.isInfinite(value)){
+                return append(Double.toString(value));
+            }
+            return append(BigDecimal.valueOf(value).setScale(3, RoundingMode.HALF_UP).toPlainString());
+        }
+        long thousandths = (long)floor+(scaled-floor>0.5 ? 1 : 0);
+        if(value<0){
+            append('-');
+        }
+        int rest = (int)(thousandths%1000);
+        return append(thousandths/1000).append('.')
+                .append((char)('0'+rest/100)).append((char)('0'+rest/10%10)).append((char)('0'+rest%10));
+    }
+
+    /**
+     * Method to keep the formatted row as the columns shared by the boxes of a line.
+     */
+    private void keepShared(){
+        if(shared.length<rowLength){
+            shared = new byte[row.length];
+        }
+        System.arraycopy(row, 0, shared, 0, rowLength);
+        sharedLength=rowLength;
+    }
+
+    /**
+     * Method to start an export on a channel.
+     * @param out WritableByteChannel receiving the export.
+     */
+    private void start(WritableByteChannel out){
+        this.out = out;
+        buffer.clear();
+    }
+
+    /**
+     * Method to copy the formatted row to the buffer, writing the buffer out when it is full.
+     * @throws IOException if the channel can't be written.
+     */
+    private void emit() throws IOException{
+        put(row, rowLength);
+    }
+
+    /**
+     * Method to copy the shared columns of a line to the buffer.
+     * @throws IOException if the channel can't be written.
+     */
+    private void emitShared() throws IOException{
+        put(shared, sharedLength);
+    }
+
+    /**
+     * Method to copy bytes to the buffer, writing the buffer out each time it fills.
+     * @param bytes byte[] to copy.
+     * @param length int number of bytes to copy.
+     * @throws IOException if the channel can't be written.
+     */
+    private void put(byte[] bytes, int length) throws IOException{
+        int offset=0;
+        while(offset<length){
+            if(!buffer.hasRemaining()){
+                drain();
+            }
+            int count = Math.min(length-offset, buffer.remaining());
+            buffer.put(bytes, offset, count);
+            offset+=count;
+        }
+    }
+
+    /**
+     * Method to write out everything held by the buffer.
+     * @throws IOException if the channel can't be written.
+     */
+    private void drain() throws IOException{
+        buffer.flip();
+        while(buffer.hasRemaining()){
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Method to write the end of an export and release the channel.
+     * @throws IOException if the channel can't be written.
+     */
+    private void finish() throws IOException{
+        try{
+            drain();
+        }
+        finally{
+            out=null;
+        }
+    }
+}
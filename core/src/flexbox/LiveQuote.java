@@ -0,0 +1,135 @@
+package flexbox;
+
+public class LiveQuote {
+
+    /**
+     * Powers of ten that are exact as doubles, used to scale parsed decimals.
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Number of significant digits that are always exact as a double.
+     */
+    private static final int MAX_DIGITS=15;
+
+    /**
+     * Ordering system checking the box sizes.
+     */
+    private final OrderingSystem orderingSystem;
+
+    /**
+     * Inputs and result of the last quote, reused while the same box is asked for again.
+     */
+    private double lastLength=Double.NaN, lastHeight, lastWidth;
+    private int lastGrade, lastColours;
+    private boolean lastBottom, lastCorners, lastSealable;
+    private BoxCatalogue lastCatalogue;
+    private long lastUnitPriceInPence;
+
+    /**
+     * Constructor for LiveQuote.
+     * A live quote prices the box being typed in without adding it to the order,
+     * and remembers the last answer so repeated requests for the same box cost nothing.
+     * @param orderingSystem OrderingSystem checking the box sizes.
+     */
+    public LiveQuote(OrderingSystem orderingSystem){
+        this.orderingSystem = orderingSystem;
+    }
+
+    /**
+     * Method to read a box dimension typed by the user, accepting a comma as decimal point.
+     * Plain decimals such as "0.45" or "1,2" are read without creating any objects and give the
+     * same value as Double.parseDouble(); anything else is passed to Double.parseDouble().
+     * @param text CharSequence typed by the user, e.g. a Segment of the text field.
+     * @return double value of the text, NaN if it is not a number.
+     */
+    public static double parseDimension(CharSequence text){
+        int length = text.length();
+        long digits=0;
+        int count=0, scale=0;
+        boolean point=false;
+        for(int i=0;i<length;i++){
+            char c = text.charAt(i);
+            if(c>='0' && c<='9'){
+                if(count==MAX_DIGITS){
+                    return parseSlow(text);
+                }
+                if(digits!=0 || c!='0'){
+                    count++;
+                }
+                digits = digits*10+(c-'0');
+                if(point){
+                    scale++;
+                }
+            }
+            else if((c=='.'||c==',') && !point){
+                point=true;
+            }
+            else{
+                return parseSlow(text);
+            }
+        }
+        if(length==0 || (point && length==1) || scale>=POWERS_OF_TEN.length){
+            return parseSlow(text);
+        }
+        return digits/POWERS_OF_TEN[scale];
+    }
+
+    /**
+     * Method to read a dimension that is not a plain decimal, such as "1e-1" or " 2 ".
+     * @param text CharSequence typed by the user.
+     * @return double value of the text, NaN if it is not a number.
+     */
+    private static double parseSlow(CharSequence text){
+        try{
+            return Double.parseDouble(text.toString().replace(',','.'));
+        }
+        catch(NumberFormatException ex){
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Method to price one box without making it.
+     * Uses the shared catalogue specification and the pricing table, and returns the same
+     * amount as boxCostInPence() of the box OrderingSystem would make.
+     * @param length double length of box.
+     * @param height double height of box.
+     * @param width double width of box.
+     * @param cardboardGrade int Cardboard grade of box.
+     * @param numberOfColours int number of colours of box.
+     * @param reinforcementBottom boolean reinforcement bottom of box.
+     * @param reinforcementCorners boolean reinforcement corners of box.
+     * @param sealableTop boolean sealable top of box.
+     * @return long price of one box in pence, -1 if the box can't be made.
+     */
+    public long unitPriceInPence(double length, double height, double width, int cardboardGrade,
+            int numberOfColours, boolean reinforcementBottom, boolean reinforcementCorners, boolean sealableTop){
+        BoxCatalogue catalogue = BoxSelector.getCatalogue();
+        if(length==lastLength && height==lastHeight && width==lastWidth && cardboardGrade==lastGrade &&
+                numberOfColours==lastColours && reinforcementBottom==lastBottom &&
+                reinforcementCorners==lastCorners && sealableTop==lastSealable && catalogue==lastCatalogue){
+            return lastUnitPriceInPence;
+        }
+        long price=-1;
+        BoxSpec spec = catalogue.specOf(cardboardGrade,numberOfColours,reinforcementBottom,reinforcementCorners,sealableTop);
+        if(spec!=null && spec.getType()!=0 && orderingSystem.isSizeValid(length, height, width)){
+            double surfaceArea = (2*length*width)+(2*length*height)+(2*width*height);
+            price = Money.toPence(PricingEngine.price(surfaceArea, spec.getPricingKey()));
+        }
+        lastLength = length;
+        lastHeight = height;
+        lastWidth = width;
+        lastGrade = cardboardGrade;
+        lastColours = numberOfColours;
+        lastBottom = reinforcementBottom;
+        lastCorners = reinforcementCorners;
+        lastSealable = sealableTop;
+        lastCatalogue = catalogue;
+        lastUnitPriceInPence = price;
+        return price;
+    }
+}
@@ -0,0 +1,66 @@
+package flexbox;
+
+public class Money {
+
+    /**
+     * Number of pence in one pound.
+     */
+    public static final int PENCE_PER_POUND=100;
+
+    /**
+     * Money only offers static conversions.
+     */
+    private Money(){}
+
+    /**
+     * Method to convert a price in pounds to whole pence.
+     * The price is scaled by 100 and rounded half-up to the nearest penny,
+     * which is the rounding used for every unit price of an order.
+     * @param pounds double price in pounds.
+     * @return long price in pence.
+     */
+    public static long toPence(double pounds){
+        return Math.round(pounds*PENCE_PER_POUND);
+    }
+
+    /**
+     * Method to convert whole pence back to pounds for display or legacy callers.
+     * @param pence long price in pence.
+     * @return double price in pounds.
+     */
+    public static double toPounds(long pence){
+        return pence/(double)PENCE_PER_POUND;
+    }
+
+    /**
+     * Method to format pence as pounds with two decimals, e.g. 1234 as "12.34".
+     * Avoids String.format so table cells and totals can be formatted cheaply.
+     * @param pence long price in pence.
+     * @return String price in pounds.
+     */
+    public static String format(long pence){
+        StringBuilder text = new StringBuilder(24);
+        appendTo(text, pence);
+        return text.toString();
+    }
+
+    /**
+     * Method to append pence formatted as pounds with two decimals.
+     * @param text StringBuilder to append to.
+     * @param pence long price in pence.
+     * @return StringBuilder the same builder.
+     */
+    public static StringBuilder appendTo(StringBuilder text, long pence){
+        if(pence<0){
+            text.append('-');
+            pence=-pence;
+        }
+        long pounds = pence/PENCE_PER_POUND;
+        int rest = (int)(pence%PENCE_PER_POUND);
+        text.append(pounds).append('.');
+        if(rest<10){
+            text.append('0');
+        }
+        return text.append(rest);
+    }
+}
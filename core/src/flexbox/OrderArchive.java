@@ -0,0 +1,367 @@
+package flexbox;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+public class OrderArchive implements Closeable {
+
+    /**
+     * Layout of one record: length, height, width, spec code, box type, quantity,
+     * unit price in pence, time the order was completed and order id.
+     */
+    public static final int RECORD_SIZE=56;
+    private static final int LENGTH=0;
+    private static final int HEIGHT=8;
+    private static final int WIDTH=16;
+    private static final int SPEC=24;
+    private static final int TYPE=25;
+    private static final int QUANTITY=28;
+    private static final int PRICE=32;
+    private static final int TIMESTAMP=40;
+    private static final int ORDER_ID=48;
+
+    /**
+     * File header: "FBA1", the format version and the number of records.
+     * The count is written after the records, so records of an unfinished append are ignored.
+     */
+    private static final int MAGIC=0x46424131;
+    private static final int VERSION=1;
+    private static final int HEADER_SIZE=64;
+    private static final int COUNT=8;
+
+    /**
+     * Number of lines archived between two calls to the progress of an append.
+     */
+    private static final int PROGRESS_LINES=4096;
+
+    /**
+     * The file is mapped in regions holding a fixed number of records.
+     */
+    private static final int REGION_SHIFT=16;
+    private static final int RECORDS_PER_REGION=1<<REGION_SHIFT;
+    private static final long REGION_BYTES=(long)RECORDS_PER_REGION*RECORD_SIZE;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+    private long size;
+
+    /**
+     * Receives the progress of an append and can stop it.
+     */
+    public interface Progress {
+        /**
+         * Method called every few thousand archived lines, on the thread appending.
+         * @param lines int confirmed lines archived so far.
+         * @param total int confirmed lines of the order.
+         * @return boolean false to stop the append and leave the archive as it was.
+         */
+        boolean archived(int lines, int total);
+    }
+
+    /**
+     * Constructor for OrderArchive.
+     * The archive keeps every completed order as fixed-width records in a memory-mapped file.
+     * Records are read in place from the mapping, so lookups and scans neither copy nor
+     * allocate per record.
+     * @param file File of the archive, created if it does not exist.
+     * @throws IOException if the file can't be mapped or is not an order archive.
+     */
+    public OrderArchive(File file) throws IOException{
+        File parent = file.getAbsoluteFile().getParentFile();
+        if(parent!=null){
+            parent.mkdirs();
+        }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try{
+            boolean created = channel.size()==0;
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if(created){
+                header.putInt(0, MAGIC).putInt(4, VERSION).putLong(COUNT, 0);
+                header.force();
+            }
+            else if(header.getInt(0)!=MAGIC || header.getInt(4)!=VERSION){
+                throw new IOException(file+" is not an order archive");
+            }
+            size = header.getLong(COUNT);
+            long needed = (size+RECORDS_PER_REGION-1)>>REGION_SHIFT;
+            while(regions.size()<needed){
+                mapRegion();
+            }
+        }
+        catch(IOException|RuntimeException ex){
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Method to map the next region of the file, growing the file if needed.
+     * @throws IOException if the region can't be mapped.
+     */
+    private void mapRegion() throws IOException{
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE,
+                HEADER_SIZE+regions.size()*REGION_BYTES, REGION_BYTES);
+        regions.add(region);
+    }
+
+    /**
+     * Method to get the region holding a record.
+     * @param index long number of the record.
+     * @return MappedByteBuffer of the region.
+     */
+    private MappedByteBuffer region(long index){
+        if(index<0||index>=size){
+            throw new IndexOutOfBoundsException("record "+index+" of "+size);
+        }
+        return regions.get((int)(index>>REGION_SHIFT));
+    }
+
+    /**
+     * Method to get the position of a record inside its region.
+     * @param index long number of the record.
+     * @return int byte position.
+     */
+    private static int offset(long index){
+        return (int)(index&(RECORDS_PER_REGION-1))*RECORD_SIZE;
+    }
+
+    /**
+     * Method to get the id the next archived order will have. Ids start at 1 and only grow.
+     * @return long id of the next order.
+     */
+    public synchronized long nextOrderId(){
+        return size==0 ? 1 : getOrderId(size-1)+1;
+    }
+
+    /**
+     * Method to archive the confirmed lines of an order under the next order id.
+     * @param store OrderStore holding the confirmed lines.
+     * @return long id of the archived order, 0 if there were no confirmed boxes.
+     * @throws IOException if the archive can't grow.
+     */
+    public synchronized long append(OrderStore store) throws IOException{
+        return append(store, nextOrderId(), System.currentTimeMillis());
+    }
+
+    /**
+     * Overloaded method to archive the confirmed lines of an order under an id taken
+     * from nextOrderId() beforehand. Every line becomes one record with the same order id and time.
+     * An id below nextOrderId() has already been archived and is not appended again,
+     * so an order replayed from the journal after a crash is archived once.
+     * @param store OrderStore holding the confirmed lines.
+     * @param orderId long id of the order.
+     * @param timestamp long time the order was completed, in milliseconds since the epoch.
+     * @return long id of the archived order, 0 if there were no confirmed boxes.
+     * @throws IOException if the archive can't grow.
+     */
+    public synchronized long append(OrderStore store, long orderId, long timestamp) throws IOException{
+        return append(store, orderId, timestamp, null);
+    }
+
+    /**
+     * Overloaded method to archive the confirmed lines of an order while reporting progress.
+     * The records only count once every line is written and the record count is updated,
+     * so an append stopped by its progress leaves the archive as it was.
+     * @param store OrderStore holding the confirmed lines.
+     * @param orderId long id of the order.
+     * @param timestamp long time the order was completed, in milliseconds since the epoch.
+     * @param progress Progress told about the lines archived, or null.
+     * @return long id of the archived order, 0 if there were no confirmed boxes.
+     * @throws InterruptedIOException if the progress stopped the append.
+     * @throws IOException if the archive can't grow.
+     */
+    public synchronized long append(OrderStore store, long orderId, long timestamp, Progress progress) throws IOException{
+        if(orderId<nextOrderId()){
+            return orderId;
+        }
+        long count = size;
+        int total = store.confirmedSize();
+        for(int row=0;row<total;row++){
+            if(progress!=null && row>0 && row%PROGRESS_LINES==0 && !progress.archived(row, total)){
+                throw new InterruptedIOException("Archive of order "+orderId+" stopped");
+            }
+            int quantity = store.getQuantity(row);
+            if(quantity==0){
+                continue;
+            }
+            if(count>>REGION_SHIFT>=regions.size()){
+                mapRegion();
+            }
+            MappedByteBuffer region = regions.get((int)(count>>REGION_SHIFT));
+            int at = offset(count);
+            BoxSpec spec = store.getSpec(row);
+            region.putDouble(at+LENGTH, store.getLength(row));
+            region.putDouble(at+HEIGHT, store.getHeight(row));
+            region.putDouble(at+WIDTH, store.getWidth(row));
+            region.put(at+SPEC, (byte)spec.getCode());
+            region.put(at+TYPE, (byte)spec.getType());
+            region.putInt(at+QUANTITY, quantity);
+            region.putLong(at+PRICE, store.getUnitPriceInPence(row));
+            region.putLong(at+TIMESTAMP, timestamp);
+            region.putLong(at+ORDER_ID, orderId);
+            count++;
+        }
+        if(count==size){
+            return 0;
+        }
+        for(long region=size>>REGION_SHIFT;region<=(count-1)>>REGION_SHIFT;region++){
+            regions.get((int)region).force();
+        }
+        header.putLong(COUNT, count);
+        header.force();
+        size = count;
+        return orderId;
+    }
+
+    /**
+     * Method to get the number of archived records.
+     * @return long number of records.
+     */
+    public synchronized long size(){
+        return size;
+    }
+
+    /**
+     * Method to get the length of a record.
+     * @param index long number of the record.
+     * @return double length of the box.
+     */
+    public synchronized double getLength(long index){
+        return region(index).getDouble(offset(index)+LENGTH);
+    }
+
+    /**
+     * Method to get the height of a record.
+     * @param index long number of the record.
+     * @return double height of the box.
+     */
+    public synchronized double getHeight(long index){
+        return region(index).getDouble(offset(index)+HEIGHT);
+    }
+
+    /**
+     * Method to get the width of a record.
+     * @param index long number of the record.
+     * @return double width of the box.
+     */
+    public synchronized double getWidth(long index){
+        return region(index).getDouble(offset(index)+WIDTH);
+    }
+
+    /**
+     * Method to get the features of a record as stored by BoxSpec.getCode().
+     * @param index long number of the record.
+     * @return int spec code.
+     */
+    public synchronized int getSpecCode(long index){
+        return region(index).get(offset(index)+SPEC)&0xff;
+    }
+
+    /**
+     * Method to get the box type of a record.
+     * @param index long number of the record.
+     * @return int BoxType of the box.
+     */
+    public synchronized int getType(long index){
+        return region(index).get(offset(index)+TYPE);
+    }
+
+    /**
+     * Method to get the quantity of a record.
+     * @param index long number of the record.
+     * @return int number of boxes.
+     */
+    public synchronized int getQuantity(long index){
+        return region(index).getInt(offset(index)+QUANTITY);
+    }
+
+    /**
+     * Method to get the unit price of a record.
+     * @param index long number of the record.
+     * @return long price of one box in pence.
+     */
+    public synchronized long getUnitPriceInPence(long index){
+        return region(index).getLong(offset(index)+PRICE);
+    }
+
+    /**
+     * Method to get the completion time of a record.
+     * @param index long number of the record.
+     * @return long time the order was completed, in milliseconds since the epoch.
+     */
+    public synchronized long getTimestamp(long index){
+        return region(index).getLong(offset(index)+TIMESTAMP);
+    }
+
+    /**
+     * Method to get the order id of a record.
+     * @param index long number of the record.
+     * @return long id of the order.
+     */
+    public synchronized long getOrderId(long index){
+        return region(index).getLong(offset(index)+ORDER_ID);
+    }
+
+    /**
+     * Method to get the specification of a record.
+     * @param index long number of the record.
+     * @return BoxSpec shared from the catalogue when possible.
+     */
+    public BoxSpec getSpec(long index){
+        return BoxSpec.ofCode(getSpecCode(index), getType(index));
+    }
+
+    /**
+     * Method to find the first record of an order. Order ids only grow, so the records are searched in O(log n).
+     * @param orderId long id of the order.
+     * @return long number of the first record of the order, or size() if there is none.
+     */
+    public synchronized long findOrder(long orderId){
+        long low=0, high=size;
+        while(low<high){
+            long middle = (low+high)>>>1;
+            if(getOrderId(middle)<orderId){
+                low = middle+1;
+            }
+            else{
+                high = middle;
+            }
+        }
+        return low<size && getOrderId(low)==orderId ? low : size;
+    }
+
+    /**
+     * Method to add up the sales of the orders completed in a period.
+     * @param from long first time included, in milliseconds since the epoch.
+     * @param to long first time excluded.
+     * @return long price of every box sold in the period, in pence.
+     */
+    public synchronized long salesInPence(long from, long to){
+        long total=0;
+        for(int r=0;r<regions.size();r++){
+            MappedByteBuffer region = regions.get(r);
+            int records = (int)Math.min(RECORDS_PER_REGION, size-((long)r<<REGION_SHIFT));
+            for(int at=0;at<records*RECORD_SIZE;at+=RECORD_SIZE){
+                long timestamp = region.getLong(at+TIMESTAMP);
+                if(timestamp>=from && timestamp<to){
+                    total += region.getLong(at+PRICE)*region.getInt(at+QUANTITY);
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Method to close the archive. The mapping stays valid until it is garbage collected.
+     * @throws IOException if the file can't be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException{
+        channel.close();
+    }
+}
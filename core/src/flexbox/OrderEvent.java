@@ -0,0 +1,64 @@
+package flexbox;
+
+public class OrderEvent {
+
+    /**
+     * Kinds of change published by the ordering system.
+     * Rows are confirmed boxes, numbered from 0 in the order they are listed.
+     */
+    public enum Type { ROWS_INSERTED, ROWS_DELETED, TOTALS_CHANGED }
+
+    /**
+     * Ordering system that changed, the kind of change and the confirmed boxes affected.
+     */
+    private final OrderingSystem source;
+    private final Type type;
+    private final int firstRow;
+    private final int lastRow;
+
+    /**
+     * Constructor for OrderEvent.
+     * @param source OrderingSystem that changed.
+     * @param type Type of change.
+     * @param firstRow int first confirmed box affected, inclusive.
+     * @param lastRow int last confirmed box affected, inclusive.
+     */
+    public OrderEvent(OrderingSystem source, Type type, int firstRow, int lastRow){
+        this.source = source;
+        this.type = type;
+        this.firstRow = firstRow;
+        this.lastRow = lastRow;
+    }
+
+    /**
+     * Method to get the ordering system that changed.
+     * @return OrderingSystem source of the event.
+     */
+    public OrderingSystem getSource(){
+        return source;
+    }
+
+    /**
+     * Method to get the kind of change.
+     * @return Type of the event.
+     */
+    public Type getType(){
+        return type;
+    }
+
+    /**
+     * Method to get the first confirmed box affected.
+     * @return int first row, inclusive.
+     */
+    public int getFirstRow(){
+        return firstRow;
+    }
+
+    /**
+     * Method to get the last confirmed box affected.
+     * @return int last row, inclusive.
+     */
+    public int getLastRow(){
+        return lastRow;
+    }
+}
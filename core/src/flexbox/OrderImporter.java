@@ -0,0 +1,158 @@
+package flexbox;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class OrderImporter {
+
+    /**
+     * Number of rows validated and priced together by one task.
+     */
+    public static final int CHUNK_ROWS=QuoteReader.CHUNK_ROWS;
+
+    /**
+     * Number of fields of a row: length, height, width, grade, colours,
+     * reinforcement bottom, reinforcement corners, sealable top and quantity.
+     */
+    public static final int FIELDS=QuoteReader.FIELDS;
+
+    /**
+     * Receives the rows that could not be imported.
+     */
+    public interface ErrorListener {
+
+        /**
+         * Method called for every row that is not imported, in the order of the file.
+         * @param lineNumber long line of the row in the file, starting at 1.
+         * @param reason String why the row was rejected.
+         */
+        void rowRejected(long lineNumber, String reason);
+    }
+
+    private final OrderingSystem orders;
+    private final int threads;
+    private final Executor committer;
+
+    /**
+     * Constructor for OrderImporter.
+     * The importer reads rows of box specifications from a CSV file and adds them to the order.
+     * Rows are parsed straight from the characters read, validated and priced on several threads,
+     * and added to the order in file order. At most two chunks per thread are held in memory,
+     * so files larger than the heap can be imported; rows that don't fit in the order book's
+     * memory budget are rejected.
+     * @param orders OrderingSystem receiving the rows, with an empty preview.
+     * @param threads int number of threads validating and pricing rows.
+     * @param committer Executor running the tasks that change the order, e.g. on the thread owning it.
+     */
+    public OrderImporter(OrderingSystem orders, int threads, Executor committer){
+        this.orders = orders;
+        this.threads = Math.max(1, threads);
+        this.committer = committer;
+    }
+
+    /**
+     * Method to import every row of a CSV file. Fields are separated by commas, or by
+     * semicolons, tabs or spaces if the first line uses them; flags are yes/no, true/false or 1/0.
+     * A first row that does not start with a number is taken as a header. The rows of each chunk
+     * are added to the confirmed order at once, without going through the preview.
+     * @param in Reader of the CSV file.
+     * @param errors ErrorListener told about each rejected row, called by the committer.
+     * @return long number of rows imported.
+     * @throws IOException if the file can't be read or importing failed.
+     */
+    public long run(Reader in, ErrorListener errors) throws IOException{
+        ExecutorService executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "order-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Deque<Future<QuoteReader.Chunk>> pending = new ArrayDeque<>();
+        long[] imported = new long[1];
+        try{
+            QuoteReader reader = new QuoteReader(in);
+            QuoteReader.Chunk chunk;
+            while((chunk = reader.next())!=null){
+                pending.add(submit(executor, chunk));
+                while(pending.size()>=threads*2){
+                    commit(pending.poll(), errors, imported);
+                }
+            }
+            while(!pending.isEmpty()){
+                commit(pending.poll(), errors, imported);
+            }
+        }
+        finally{
+            executor.shutdownNow();
+        }
+        return imported[0];
+    }
+
+    /**
+     * Method to start validating and pricing a chunk.
+     * @param executor ExecutorService running the task.
+     * @param chunk QuoteReader.Chunk of rows.
+     * @return Future of the priced chunk.
+     */
+    private Future<QuoteReader.Chunk> submit(ExecutorService executor, QuoteReader.Chunk chunk){
+        return executor.submit(() -> {
+            chunk.price(orders);
+            return chunk;
+        });
+    }
+
+    /**
+     * Method to wait for a chunk and add its rows to the order through the committer.
+     * @param result Future of the priced chunk.
+     * @param errors ErrorListener told about rejected rows.
+     * @param imported long[] counter of imported rows.
+     * @throws IOException if pricing or adding the rows failed.
+     */
+    private void commit(Future<QuoteReader.Chunk> result, ErrorListener errors, long[] imported) throws IOException{
+        try{
+            QuoteReader.Chunk chunk = result.get();
+            FutureTask<Void> task = new FutureTask<>(() -> {
+                imported[0] += commit(chunk, orders, errors);
+                return null;
+            });
+            committer.execute(task);
+            task.get();
+        }
+        catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        }
+        catch(ExecutionException ex){
+            throw new IOException("Import failed", ex.getCause());
+        }
+    }
+
+    /**
+     * Method to add the priced rows of a chunk to the confirmed order. Runs on the committer.
+     * @param chunk QuoteReader.Chunk of priced rows.
+     * @param orders OrderingSystem receiving the rows.
+     * @param errors ErrorListener told about rejected rows.
+     * @return int number of rows added.
+     * @throws IOException if the journal of the order can't record the rows.
+     */
+    private static int commit(QuoteReader.Chunk chunk, OrderingSystem orders, ErrorListener errors) throws IOException{
+        Box[] boxes = chunk.getBoxes();
+        int end = orders.addConfirmedOrders(boxes, chunk.getQuantities());
+        int added=0;
+        for(int line=0;line<chunk.getLines();line++){
+            String reason = chunk.getRejected(line);
+            if(boxes[line]!=null){
+                if(line<end){
+                    added++;
+                }
+                else{
+                    reason = "order book is full";
+                }
+            }
+            if(reason!=null){
+                errors.rowRejected(chunk.getFirstLine()+line, reason);
+            }
+        }
+        return added;
+    }
+}
@@ -0,0 +1,642 @@
+package flexbox;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+public class OrderJournal implements Closeable {
+
+    /**
+     * Record types, one per change to the order.
+     * FINALIZE holds the archive id of the completed order, 0 if it is not archived,
+     * and the time it was completed. Older journals have FINALIZE records with only the id,
+     * or without a body; those orders are archived with the time of the replay.
+     */
+    public static final byte ADD=1;
+    public static final byte CONFIRM=2;
+    public static final byte DELETE=3;
+    public static final byte CLEAR=4;
+    public static final byte CLEAR_PREVIEW=5;
+    public static final byte FINALIZE=6;
+
+    /**
+     * File header: "FBJ1", the format version and a random id telling journals apart,
+     * so a snapshot is only applied to the journal it was taken from.
+     * Journals of version 1 have no id and are read with the id 0.
+     */
+    private static final int MAGIC=0x46424a31;
+    private static final int VERSION=2;
+    private static final int VERSION_1_HEADER_SIZE=8;
+    public static final int HEADER_SIZE=16;
+
+    /**
+     * Every record is its length, its type, its body and a CRC32 of type and body.
+     */
+    private static final int RECORD_OVERHEAD=4+1+4;
+    private static final int MAX_BODY=32;
+    private static final int ADD_BODY=3*8+1+1+4;
+
+    private volatile File file;
+    private final FileChannel channel;
+    private final long id;
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Records appended but not yet written, and the buffer being written by the writer thread.
+     */
+    private ByteBuffer pending = ByteBuffer.allocate(1<<16);
+    private ByteBuffer writing = ByteBuffer.allocate(1<<16);
+
+    /**
+     * Offset of the end of the last appended record and of the last record forced to disk.
+     */
+    private long appendedOffset;
+    private long durableOffset;
+
+    /**
+     * CRC32 of the last appended record, 0 if the journal has no record.
+     */
+    private int lastRecordCrc;
+
+    private boolean closed;
+    private boolean stopped;
+    private IOException failure;
+    private final Thread writer;
+
+    /**
+     * Constructor for OrderJournal, use open() to create a journal.
+     * @param file File of the journal.
+     * @param channel FileChannel positioned at the end of the valid records.
+     * @param id long id of the journal.
+     * @param end long offset of the end of the valid records.
+     * @param lastRecordCrc int CRC32 of the last valid record, 0 if there is none.
+     */
+    private OrderJournal(File file, FileChannel channel, long id, long end, int lastRecordCrc){
+        this.file = file;
+        this.channel = channel;
+        this.id = id;
+        this.appendedOffset = end;
+        this.durableOffset = end;
+        this.lastRecordCrc = lastRecordCrc;
+        this.writer = new Thread(this::writeLoop, "order-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Method to open a journal, replay its records and get ready to append more.
+     * Records are read until the first one that is incomplete or fails its checksum,
+     * which is where a crash stopped writing; the file is truncated there.
+     * @param file File of the journal, created if it does not exist.
+     * @param orders OrderingSystem receiving the records, or null to only check them.
+     * @return OrderJournal appending after the last valid record.
+     * @throws IOException if the file can't be read, is not a journal or holds a record of
+     * a type this version does not know; the file is then left untouched.
+     */
+    public static OrderJournal open(File file, OrderingSystem orders) throws IOException{
+        return open(file, orders, null);
+    }
+
+    /**
+     * Overloaded method to open a journal starting from a snapshot of the order book.
+     * The snapshot is loaded and only the records written after it are replayed, so the time
+     * to open does not grow with the history. The snapshot is ignored unless it was taken from
+     * this journal and the record it ends with is still the one in the file.
+     * @param file File of the journal, created if it does not exist.
+     * @param orders OrderingSystem receiving the snapshot and the records, or null to only check them.
+     * @param snapshot OrderSnapshot taken from this journal, or null to replay every record.
+     * @return OrderJournal appending after the last valid record.
+     * @throws IOException if the file can't be read, is not a journal or holds a record of
+     * a type this version does not know; the file is then left untouched.
+     */
+    public static OrderJournal open(File file, OrderingSystem orders, OrderSnapshot snapshot) throws IOException{
+        File parent = file.getAbsoluteFile().getParentFile();
+        if(parent!=null){
+            parent.mkdirs();
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try{
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            int read;
+            do{
+                read = channel.read(header, header.position());
+            }
+            while(read>0 && header.hasRemaining());
+            long id;
+            int headerSize;
+            if(header.position()<VERSION_1_HEADER_SIZE
+                    || (header.position()<HEADER_SIZE && header.getInt(0)==MAGIC && header.getInt(4)==VERSION)){
+                id = writeHeader(channel);
+                headerSize = HEADER_SIZE;
+            }
+            else if(header.getInt(0)==MAGIC && header.getInt(4)==VERSION){
+                id = header.getLong(8);
+                headerSize = HEADER_SIZE;
+            }
+            else if(header.getInt(0)==MAGIC && header.getInt(4)==1){
+                id = 0;
+                headerSize = VERSION_1_HEADER_SIZE;
+            }
+            else{
+                throw new IOException(file+" is not an order journal");
+            }
+            long from = headerSize;
+            if(snapshot!=null && matches(snapshot, channel, id, headerSize)){
+                if(orders!=null){
+                    snapshot.restore(orders);
+                }
+                from = snapshot.getJournalOffset();
+            }
+            else if(snapshot!=null){
+                Logger.getLogger(OrderJournal.class.getName()).log(Level.WARNING,
+                        "Snapshot was not taken from {0}, the whole journal is replayed", file);
+            }
+            long end = replay(file, channel, from, orders);
+            channel.position(end);
+            return new OrderJournal(file, channel, id, end, end>headerSize ? readInt(channel, end-4) : 0);
+        }
+        catch(IOException|RuntimeException ex){
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Method to start a new journal, replacing any file left at its place.
+     * Used to rotate the journal: the new journal starts from a snapshot, see moveTo().
+     * @param file File of the new journal.
+     * @return OrderJournal without records under a new id.
+     * @throws IOException if the file can't be written.
+     */
+    public static OrderJournal create(File file) throws IOException{
+        Files.deleteIfExists(file.toPath());
+        return open(file, null);
+    }
+
+    /**
+     * Method to start an empty journal under a new random id.
+     * @param channel FileChannel of the journal.
+     * @return long id of the journal.
+     * @throws IOException if the header can't be written.
+     */
+    private static long writeHeader(FileChannel channel) throws IOException{
+        long id = new SecureRandom().nextLong();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(id).flip();
+        channel.truncate(0);
+        while(header.hasRemaining()){
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+        return id;
+    }
+
+    /**
+     * Method to check that a snapshot was taken from a journal: the ids are the same and
+     * the record ending at the offset of the snapshot has the CRC32 the snapshot recorded.
+     * @param snapshot OrderSnapshot to check.
+     * @param channel FileChannel of the journal.
+     * @param id long id of the journal.
+     * @param headerSize int size of the file header.
+     * @return boolean true if the snapshot can be applied.
+     * @throws IOException if the journal can't be read.
+     */
+    private static boolean matches(OrderSnapshot snapshot, FileChannel channel, long id, int headerSize) throws IOException{
+        long offset = snapshot.getJournalOffset();
+        if(snapshot.getJournalId()!=id || offset<headerSize || offset>channel.size()){
+            return false;
+        }
+        if(offset==headerSize){
+            return snapshot.getRecordCrc()==0;
+        }
+        return offset-4>=headerSize && readInt(channel, offset-4)==snapshot.getRecordCrc();
+    }
+
+    /**
+     * Method to read one int of the file.
+     * @param channel FileChannel to read.
+     * @param offset long offset of the int.
+     * @return int read.
+     * @throws IOException if the file can't be read or ends before the int.
+     */
+    private static int readInt(FileChannel channel, long offset) throws IOException{
+        ByteBuffer value = ByteBuffer.allocate(4);
+        while(value.hasRemaining()){
+            if(channel.read(value, offset+value.position())<0){
+                throw new EOFException();
+            }
+        }
+        return value.getInt(0);
+    }
+
+    /**
+     * Method to apply the valid records of a journal and drop a torn tail.
+     * @param file File of the journal, for messages.
+     * @param channel FileChannel of the journal.
+     * @param from long offset of the first record to apply.
+     * @param orders OrderingSystem receiving the records, or null.
+     * @return long offset of the end of the valid records.
+     * @throws IOException if the journal can't be read or holds a record of an unknown type.
+     */
+    static long replay(File file, FileChannel channel, long from, OrderingSystem orders) throws IOException{
+        ByteBuffer buffer = ByteBuffer.allocate(1<<16);
+        buffer.flip();
+        CRC32 crc = new CRC32();
+        long offset = from;
+        long readOffset = from;
+        while(true){
+            if(buffer.remaining()<4){
+                readOffset += fill(channel, buffer, readOffset);
+            }
+            if(buffer.remaining()<4){
+                break;
+            }
+            int position = buffer.position();
+            int length = buffer.getInt(position);
+            if(length<1 || length>1+MAX_BODY){
+                break;
+            }
+            if(buffer.remaining()<length+8){
+                readOffset += fill(channel, buffer, readOffset);
+                position = buffer.position();
+                if(buffer.remaining()<length+8){
+                    break;
+                }
+            }
+            crc.reset();
+            crc.update(buffer.array(), position+4, length);
+            if((int)crc.getValue()!=buffer.getInt(position+4+length) || !apply(buffer, position+4, length, orders)){
+                break;
+            }
+            buffer.position(position+length+8);
+            offset += length+8;
+        }
+        long size = channel.size();
+        if(offset<size){
+            Logger.getLogger(OrderJournal.class.getName()).log(Level.WARNING,
+                    "Dropping {0} bytes of incomplete records at the end of {1}", new Object[]{size-offset, file});
+            channel.truncate(offset);
+            channel.force(true);
+        }
+        return offset;
+    }
+
+    /**
+     * Method to read more of the file behind the unread bytes of the buffer.
+     * @param channel FileChannel to read.
+     * @param buffer ByteBuffer ready to be read, kept ready to be read.
+     * @param readOffset long offset of the file after the bytes already in the buffer.
+     * @return int number of bytes read.
+     * @throws IOException if the file can't be read.
+     */
+    private static int fill(FileChannel channel, ByteBuffer buffer, long readOffset) throws IOException{
+        buffer.compact();
+        int read = Math.max(0, channel.read(buffer, readOffset));
+        buffer.flip();
+        return read;
+    }
+
+    /**
+     * Method to apply one record to the ordering system.
+     * @param buffer ByteBuffer holding the record.
+     * @param position int position of the record type.
+     * @param length int length of type and body.
+     * @param orders OrderingSystem receiving the record, or null.
+     * @return boolean false if the body does not have the length of its type.
+     * @throws IOException if the type is unknown, so the journal was written by a newer
+     * version and must not be cut short, or if a completed order could not be archived.
+     */
+    private static boolean apply(ByteBuffer buffer, int position, int length, OrderingSystem orders) throws IOException{
+        byte type = buffer.get(position);
+        int body = position+1;
+        switch(type){
+            case ADD:
+                if(length!=1+ADD_BODY){
+                    return false;
+                }
+                if(orders!=null){
+                    BoxSpec spec = BoxSpec.ofCode(buffer.get(body+24)&0xff, buffer.get(body+25));
+                    orders.addPreviewOrder(orders.createBox(buffer.getDouble(body), buffer.getDouble(body+8),
+                            buffer.getDouble(body+16), spec), buffer.getInt(body+26));
+                }
+                return true;
+            case DELETE:
+                if(length!=1+4){
+                    return false;
+                }
+                if(orders!=null){
+                    orders.deleteOrder(buffer.getInt(body));
+                }
+                return true;
+            case FINALIZE:
+                if(length!=1+16 && length!=1+8 && length!=1){
+                    return false;
+                }
+                if(orders!=null){
+                    orders.replayFinalize(length==1 ? 0 : buffer.getLong(body),
+                            length==1+16 ? buffer.getLong(body+8) : System.currentTimeMillis());
+                }
+                return true;
+            case CONFIRM:
+            case CLEAR:
+            case CLEAR_PREVIEW:
+                if(length!=1){
+                    return false;
+                }
+                if(orders!=null){
+                    if(type==CONFIRM){
+                        orders.confirmOrderBox();
+                    }
+                    else if(type==CLEAR){
+                        orders.clearAllOrder();
+                    }
+                    else{
+                        orders.clearPreviewOrder();
+                    }
+                }
+                return true;
+            default:
+                throw new IOException("unsupported journal record type "+type);
+        }
+    }
+
+    /**
+     * Method to get the file of the journal.
+     * @return File of the journal.
+     */
+    public File getFile(){
+        return file;
+    }
+
+    /**
+     * Method to move the journal over another file in one step, replacing it.
+     * The journal keeps recording changes in the moved file.
+     * @param target File the journal replaces.
+     * @throws IOException if the file can't be moved; the journal is then left where it was.
+     */
+    public synchronized void moveTo(File target) throws IOException{
+        Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        file = target;
+    }
+
+    /**
+     * Method to get the id of the journal, 0 for journals written before ids were recorded.
+     * @return long id of the journal.
+     */
+    public long getId(){
+        return id;
+    }
+
+    /**
+     * Method to record an order line added to the preview.
+     * @param box Box of the line.
+     * @param quantity int number of boxes.
+     * @return long offset of the end of the record.
+     * @throws IOException if the journal has stopped recording changes.
+     */
+    public synchronized long logAdd(Box box, int quantity) throws IOException{
+        checkWritable();
+        int start = begin(ADD, ADD_BODY);
+        pending.putDouble(box.getLength()).putDouble(box.getHeight()).putDouble(box.getWidth());
+        pending.put((byte)box.getSpec().getCode()).put((byte)box.getType()).putInt(quantity);
+        return end(start);
+    }
+
+    /**
+     * Method to record the deletion of one confirmed box.
+     * @param boxNumber int number of the box, starting at 1.
+     * @return long offset of the end of the record.
+     * @throws IOException if the journal has stopped recording changes.
+     */
+    public synchronized long logDelete(int boxNumber) throws IOException{
+        checkWritable();
+        int start = begin(DELETE, 4);
+        pending.putInt(boxNumber);
+        return end(start);
+    }
+
+    /**
+     * Method to record the completion of the confirmed order.
+     * @param orderId long id the order is archived under, 0 if it is not archived.
+     * @param timestamp long time the order was completed, in milliseconds since the epoch.
+     * @return long offset of the end of the record.
+     * @throws IOException if the journal has stopped recording changes.
+     */
+    public synchronized long logFinalize(long orderId, long timestamp) throws IOException{
+        checkWritable();
+        int start = begin(FINALIZE, 16);
+        pending.putLong(orderId).putLong(timestamp);
+        return end(start);
+    }
+
+    /**
+     * Method to record a change without data: CONFIRM, CLEAR or CLEAR_PREVIEW.
+     * @param type byte record type.
+     * @return long offset of the end of the record.
+     * @throws IOException if the journal has stopped recording changes.
+     */
+    public synchronized long log(byte type) throws IOException{
+        checkWritable();
+        return end(begin(type, 0));
+    }
+
+    /**
+     * Method to refuse new records once the journal can't write them,
+     * so callers learn that changes are no longer recorded instead of losing them silently.
+     * @throws IOException if a write failed or the journal is closed.
+     */
+    private void checkWritable() throws IOException{
+        if(failure!=null){
+            throw new IOException("Journal "+file+" stopped recording changes", failure);
+        }
+        if(closed){
+            throw new IOException("Journal "+file+" is closed");
+        }
+    }
+
+    /**
+     * Method to start a record in the pending buffer.
+     * @param type byte record type.
+     * @param bodySize int size of the body.
+     * @return int position of the record in the buffer.
+     */
+    private int begin(byte type, int bodySize){
+        if(pending.remaining()<RECORD_OVERHEAD+bodySize){
+            ByteBuffer larger = ByteBuffer.allocate(pending.capacity()*2);
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        int start = pending.position();
+        pending.putInt(1+bodySize).put(type);
+        return start;
+    }
+
+    /**
+     * Method to finish a record with its checksum and wake the writer thread.
+     * @param start int position of the record in the buffer.
+     * @return long offset of the end of the record.
+     */
+    private long end(int start){
+        crc.reset();
+        crc.update(pending.array(), start+4, pending.position()-start-4);
+        lastRecordCrc = (int)crc.getValue();
+        pending.putInt(lastRecordCrc);
+        appendedOffset += pending.position()-start;
+        notifyAll();
+        return appendedOffset;
+    }
+
+    /**
+     * Method to wait until every record appended so far is on disk.
+     * Callers waiting at the same time are released by the same fsync of the writer thread,
+     * so concurrent changes share one force instead of paying one each.
+     * @throws IOException if the journal could not be written.
+     */
+    public synchronized void sync() throws IOException{
+        long target = appendedOffset;
+        boolean interrupted=false;
+        while(durableOffset<target && failure==null && !stopped){
+            try{
+                wait();
+            }
+            catch(InterruptedException ex){
+                interrupted=true;
+            }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+        if(failure!=null){
+            throw new IOException("Journal "+file+" stopped recording changes", failure);
+        }
+        if(durableOffset<target){
+            throw new IOException("Journal "+file+" was closed before its records were written");
+        }
+    }
+
+    /**
+     * Method to check if a write failed, after which the journal records nothing more.
+     * @return boolean true if the journal stopped recording changes.
+     */
+    public synchronized boolean hasFailed(){
+        return failure!=null;
+    }
+
+    /**
+     * Method to get the offset of the end of the last appended record.
+     * @return long appended offset.
+     */
+    public synchronized long getAppendedOffset(){
+        return appendedOffset;
+    }
+
+    /**
+     * Method to get the CRC32 of the last appended record, which ends at the appended offset.
+     * @return int CRC32 of the record, 0 if the journal has no record.
+     */
+    public synchronized int getLastRecordCrc(){
+        return lastRecordCrc;
+    }
+
+    /**
+     * Method to get the offset of the end of the records forced to disk.
+     * @return long durable offset.
+     */
+    public synchronized long getDurableOffset(){
+        return durableOffset;
+    }
+
+    /**
+     * Method run by the writer thread, releasing the callers of sync() when it stops.
+     */
+    private void writeLoop(){
+        try{
+            writeRounds();
+        }
+        finally{
+            synchronized(this){
+                stopped=true;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Method to write rounds of records until the journal is closed or a write fails.
+     * Every round writes all records appended since the previous round and forces them
+     * to disk with one fsync, so records appended while a fsync is running share the next one.
+     */
+    private void writeRounds(){
+        while(true){
+            long target;
+            synchronized(this){
+                while(pending.position()==0 && !closed){
+                    try{
+                        wait();
+                    }
+                    catch(InterruptedException ex){
+                        return;
+                    }
+                }
+                if(pending.position()==0){
+                    return;
+                }
+                ByteBuffer swap = writing;
+                writing = pending;
+                pending = swap;
+                target = appendedOffset;
+            }
+            try{
+                writing.flip();
+                while(writing.hasRemaining()){
+                    channel.write(writing);
+                }
+                channel.force(false);
+                writing.clear();
+                synchronized(this){
+                    durableOffset = target;
+                    notifyAll();
+                }
+            }
+            catch(IOException ex){
+                Logger.getLogger(OrderJournal.class.getName()).log(Level.SEVERE, "Could not write "+file, ex);
+                synchronized(this){
+                    failure = ex;
+                    notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Method to write the remaining records and close the journal.
+     * @throws IOException if the records could not be written.
+     */
+    @Override
+    public void close() throws IOException{
+        synchronized(this){
+            closed=true;
+            notifyAll();
+        }
+        try{
+            writer.join();
+        }
+        catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if(failure!=null){
+            throw failure;
+        }
+    }
+}
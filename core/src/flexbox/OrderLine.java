@@ -0,0 +1,74 @@
+package flexbox;
+
+public class OrderLine {
+
+    /**
+     * Box holding the specification and dimensions shared by every unit of the line.
+     */
+    protected Box box;
+
+    /**
+     * Number of identical boxes ordered in this line.
+     */
+    protected int quantity;
+
+    /**
+     * Constructor for OrderLine.
+     * An order line stores the box once together with the number of units requested.
+     * @param box Box shared by every unit of the line.
+     * @param quantity int number of boxes in the line.
+     */
+    public OrderLine(Box box, int quantity){
+        this.box = box;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Method to get the box of the line.
+     * @return Box shared by every unit of the line.
+     */
+    public Box getBox(){
+        return box;
+    }
+
+    /**
+     * Method to get the number of boxes in the line.
+     * @return int quantity of boxes.
+     */
+    public int getQuantity(){
+        return quantity;
+    }
+
+    /**
+     * Method to get if the user has confirmed the line.
+     * @return boolean status of line confirmation.
+     */
+    public boolean isConfirmed(){
+        return box.isConfirmedOrderBox();
+    }
+
+    /**
+     * Method to confirm every unit of the line.
+     */
+    public void confirm(){
+        if(!box.isConfirmedOrderBox()){
+            box.changeConfirmedOrderBox();
+        }
+    }
+
+    /**
+     * Method to calculate the price of the whole line.
+     * @return double price of one box multiplied by the quantity.
+     */
+    public double linePrice(){
+        return box.boxCost()*quantity;
+    }
+
+    /**
+     * Method to calculate the price of the whole line in pence.
+     * @return long price of one box in pence multiplied by the quantity.
+     */
+    public long linePriceInPence(){
+        return box.boxCostInPence()*quantity;
+    }
+}
@@ -0,0 +1,11 @@
+package flexbox;
+
+public interface OrderListener {
+
+    /**
+     * Method called after the ordering system has changed.
+     * Row events come first and are followed by a TOTALS_CHANGED event.
+     * @param event OrderEvent describing the change.
+     */
+    void orderChanged(OrderEvent event);
+}
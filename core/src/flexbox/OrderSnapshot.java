@@ -0,0 +1,331 @@
+package flexbox;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+public class OrderSnapshot {
+
+    /**
+     * File header: "FBS1", the format version, the journal id, the journal offset, the CRC32
+     * of the journal record ending at that offset, the number of lines and the number of confirmed lines.
+     * The lines follow and a CRC32 of everything ends the file.
+     */
+    private static final int MAGIC=0x46425331;
+    private static final int VERSION=2;
+    private static final int HEADER_SIZE=4+4+8+8+4+4+4;
+    private static final int LINE_SIZE=3*8+1+1+4;
+
+    /**
+     * Size of the buffer handed to the file in one write.
+     */
+    private static final int BUFFER_SIZE=64*1024;
+
+    /**
+     * Journal the snapshot was taken from: its id, the offset after the last change included
+     * in the snapshot and the CRC32 of the record ending there, 0 if there is no record.
+     */
+    private final long journalId;
+    private final long journalOffset;
+    private final int recordCrc;
+
+    /**
+     * Order lines, confirmed lines first.
+     */
+    private final int lines;
+    private final int confirmedLines;
+    private final double[] length, height, width;
+    private final byte[] code, type;
+    private final int[] quantity;
+
+    /**
+     * Constructor for OrderSnapshot.
+     * @param journalId long id of the journal.
+     * @param journalOffset long journal offset covered by the snapshot.
+     * @param recordCrc int CRC32 of the journal record ending at the offset.
+     * @param lines int number of lines.
+     * @param confirmedLines int number of confirmed lines.
+     */
+    private OrderSnapshot(long journalId, long journalOffset, int recordCrc, int lines, int confirmedLines){
+        this.journalId = journalId;
+        this.journalOffset = journalOffset;
+        this.recordCrc = recordCrc;
+        this.lines = lines;
+        this.confirmedLines = confirmedLines;
+        this.length = new double[lines];
+        this.height = new double[lines];
+        this.width = new double[lines];
+        this.code = new byte[lines];
+        this.type = new byte[lines];
+        this.quantity = new int[lines];
+    }
+
+    /**
+     * Constructor for OrderSnapshot sharing the lines of another snapshot.
+     * @param snapshot OrderSnapshot whose lines are shared, they are never changed.
+     * @param journalId long id of the journal.
+     * @param journalOffset long journal offset covered by the snapshot.
+     * @param recordCrc int CRC32 of the journal record ending at the offset.
+     */
+    private OrderSnapshot(OrderSnapshot snapshot, long journalId, long journalOffset, int recordCrc){
+        this.journalId = journalId;
+        this.journalOffset = journalOffset;
+        this.recordCrc = recordCrc;
+        this.lines = snapshot.lines;
+        this.confirmedLines = snapshot.confirmedLines;
+        this.length = snapshot.length;
+        this.height = snapshot.height;
+        this.width = snapshot.width;
+        this.code = snapshot.code;
+        this.type = snapshot.type;
+        this.quantity = snapshot.quantity;
+    }
+
+    /**
+     * Method to copy the order book. The ordering system is locked while the lines are copied,
+     * so the copy can be taken on any thread and matches the journal offset exactly.
+     * @param orders OrderingSystem to copy.
+     * @return OrderSnapshot of the order book and of the journal position it matches.
+     */
+    public static OrderSnapshot capture(OrderingSystem orders){
+        synchronized(orders){
+            OrderStore store = orders.getOrderStore();
+            int lines=0, confirmedLines=0;
+            for(int row=0;row<store.size();row++){
+                if(store.getQuantity(row)>0){
+                    lines++;
+                    if(store.isConfirmed(row)){
+                        confirmedLines++;
+                    }
+                }
+            }
+            OrderJournal journal = orders.getJournal();
+            OrderSnapshot snapshot = journal==null ? new OrderSnapshot(0, OrderJournal.HEADER_SIZE, 0, lines, confirmedLines)
+                    : new OrderSnapshot(journal.getId(), journal.getAppendedOffset(), journal.getLastRecordCrc(),
+                            lines, confirmedLines);
+            int line=0;
+            for(int row=0;row<store.size();row++){
+                if(store.getQuantity(row)>0){
+                    BoxSpec spec = store.getSpec(row);
+                    snapshot.length[line] = store.getLength(row);
+                    snapshot.height[line] = store.getHeight(row);
+                    snapshot.width[line] = store.getWidth(row);
+                    snapshot.code[line] = (byte)spec.getCode();
+                    snapshot.type[line] = (byte)spec.getType();
+                    snapshot.quantity[line] = store.getQuantity(row);
+                    line++;
+                }
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Method to get the same order book as the starting point of a new journal,
+     * so only the records of the new journal are replayed after it.
+     * @param journal OrderJournal without records.
+     * @return OrderSnapshot with the lines of this snapshot, ending at the header of the journal.
+     */
+    public OrderSnapshot startOf(OrderJournal journal){
+        return new OrderSnapshot(this, journal.getId(), OrderJournal.HEADER_SIZE, 0);
+    }
+
+    /**
+     * Method to get the id of the journal the snapshot was taken from.
+     * @return long journal id.
+     */
+    public long getJournalId(){
+        return journalId;
+    }
+
+    /**
+     * Method to get the CRC32 of the journal record ending at the offset of the snapshot.
+     * @return int CRC32 of the record, 0 if the snapshot was taken before the first record.
+     */
+    public int getRecordCrc(){
+        return recordCrc;
+    }
+
+    /**
+     * Method to get the journal offset covered by the snapshot; only later records need replaying.
+     * @return long journal offset.
+     */
+    public long getJournalOffset(){
+        return journalOffset;
+    }
+
+    /**
+     * Method to load the snapshot into an empty ordering system.
+     * @param orders OrderingSystem without orders and without a journal.
+     * @throws IOException if the ordering system has a journal that can't record the lines.
+     */
+    public void restore(OrderingSystem orders) throws IOException{
+        for(int line=0;line<lines;line++){
+            if(line==confirmedLines){
+                orders.confirmOrderBox();
+            }
+            orders.addPreviewOrder(orders.createBox(length[line], height[line], width[line],
+                    BoxSpec.ofCode(code[line]&0xff, type[line])), quantity[line]);
+        }
+        if(lines==confirmedLines){
+            orders.confirmOrderBox();
+        }
+    }
+
+    /**
+     * Method to save the order book and start a new journal from it, so the journal does not
+     * grow with the history. The order book is copied, then a new journal is started next to the
+     * current one and the snapshot is written pointing at its header. If nothing was recorded
+     * meanwhile, the new journal replaces the current one in one move, under the lock of the
+     * ordering system, and the old journal is closed. Otherwise the snapshot is written for the
+     * current journal and the rotation waits for the next checkpoint.
+     * Until the move the snapshot on disk does not match the journal file, which is then replayed
+     * from its start, so a crash at any point still restores the order. After the move the journal
+     * only holds the changes made since, and the snapshot is needed to restore the order.
+     * @param orders OrderingSystem recording its changes in the journal.
+     * @param journal OrderJournal of the ordering system.
+     * @param file File of the snapshot.
+     * @return OrderSnapshot written, null if the ordering system no longer uses the journal.
+     * @throws IOException if the journal, the snapshot or the new journal can't be written;
+     * the current journal is then kept.
+     */
+    public static OrderSnapshot checkpoint(OrderingSystem orders, OrderJournal journal, File file) throws IOException{
+        OrderSnapshot snapshot = capture(orders);
+        if(snapshot.getJournalId()!=journal.getId() || orders.getJournal()!=journal){
+            return null;
+        }
+        journal.sync();
+        File current = journal.getFile();
+        File next = new File(current.getPath()+".next");
+        OrderJournal rotated = OrderJournal.create(next);
+        OrderSnapshot start = snapshot.startOf(rotated);
+        boolean moved=false;
+        try{
+            start.write(file);
+            synchronized(orders){
+                if(orders.getJournal()==journal && journal.getAppendedOffset()==snapshot.getJournalOffset()){
+                    rotated.moveTo(current);
+                    orders.setJournal(rotated);
+                    moved=true;
+                }
+            }
+        }
+        finally{
+            if(!moved){
+                rotated.close();
+                Files.deleteIfExists(next.toPath());
+            }
+        }
+        if(!moved){
+            snapshot.write(file);
+            return snapshot;
+        }
+        journal.close();
+        return start;
+    }
+
+    /**
+     * Method to write the snapshot. It is written to a temporary file first and then moved
+     * over the previous snapshot, so a crash leaves either the old or the new snapshot.
+     * The lines go through a buffer of fixed size, so writing does not need a second copy of the order.
+     * @param file File of the snapshot.
+     * @throws IOException if the snapshot can't be written.
+     */
+    public void write(File file) throws IOException{
+        Path target = file.toPath();
+        Path temporary = target.resolveSibling(target.getFileName()+".tmp");
+        try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)){
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            CRC32 crc = new CRC32();
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(journalId).putLong(journalOffset).putInt(recordCrc)
+                    .putInt(lines).putInt(confirmedLines);
+            for(int line=0;line<lines;line++){
+                if(buffer.remaining()<LINE_SIZE){
+                    drain(channel, buffer, crc);
+                }
+                buffer.putDouble(length[line]).putDouble(height[line]).putDouble(width[line]);
+                buffer.put(code[line]).put(type[line]).putInt(quantity[line]);
+            }
+            drain(channel, buffer, crc);
+            buffer.putInt((int)crc.getValue());
+            buffer.flip();
+            while(buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Method to add the buffered bytes to the checksum and write them out.
+     * @param channel FileChannel of the snapshot.
+     * @param buffer ByteBuffer being filled, cleared afterwards.
+     * @param crc CRC32 of the bytes written so far.
+     * @throws IOException if the file can't be written.
+     */
+    private static void drain(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException{
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.flip();
+        while(buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Method to read a snapshot.
+     * @param file File of the snapshot.
+     * @return OrderSnapshot read, null if there is no snapshot or it is damaged or of an older version.
+     * @throws IOException if the file can't be read.
+     */
+    public static OrderSnapshot read(File file) throws IOException{
+        if(!file.isFile()){
+            return null;
+        }
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if(bytes.length<HEADER_SIZE+4 || buffer.getInt()!=MAGIC || buffer.getInt()!=VERSION){
+            return damaged(file);
+        }
+        long journalId = buffer.getLong();
+        long journalOffset = buffer.getLong();
+        int recordCrc = buffer.getInt();
+        int lines = buffer.getInt();
+        int confirmedLines = buffer.getInt();
+        if(lines<0 || confirmedLines<0 || confirmedLines>lines || (long)HEADER_SIZE+(long)lines*LINE_SIZE+4!=bytes.length){
+            return damaged(file);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length-4);
+        if((int)crc.getValue()!=buffer.getInt(bytes.length-4)){
+            return damaged(file);
+        }
+        OrderSnapshot snapshot = new OrderSnapshot(journalId, journalOffset, recordCrc, lines, confirmedLines);
+        for(int line=0;line<lines;line++){
+            snapshot.length[line] = buffer.getDouble();
+            snapshot.height[line] = buffer.getDouble();
+            snapshot.width[line] = buffer.getDouble();
+            snapshot.code[line] = buffer.get();
+            snapshot.type[line] = buffer.get();
+            snapshot.quantity[line] = buffer.getInt();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Method to report a snapshot that can't be used, which is then ignored.
+     * @param file File of the snapshot.
+     * @return null.
+     */
+    private static OrderSnapshot damaged(File file){
+        Logger.getLogger(OrderSnapshot.class.getName()).log(Level.WARNING,
+                "Ignoring damaged or outdated snapshot {0}, the whole journal is replayed", file);
+        return null;
+    }
+}
@@ -0,0 +1,461 @@
+package flexbox;
+
+import java.util.*;
+
+public class OrderStore {
+
+    /**
+     * Rows are grouped in segments of SEGMENT_SIZE rows. Growing the store allocates
+     * one more segment per column instead of copying the whole columns.
+     */
+    private static final int SEGMENT_SHIFT=10;
+    public static final int SEGMENT_SIZE=1<<SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK=SEGMENT_SIZE-1;
+
+    /**
+     * Approximate number of bytes used by one row of every column, including the index.
+     */
+    public static final int BYTES_PER_LINE=3*8+8+4+8+2*8+8;
+
+    /**
+     * Dimension columns, one entry per order line.
+     */
+    protected double[][] length;
+    protected double[][] height;
+    protected double[][] width;
+
+    /**
+     * Specification column, one shared BoxSpec reference per order line.
+     */
+    protected BoxSpec[][] spec;
+
+    /**
+     * Quantity, unit price in pence, unit volume and unit surface area of every order line.
+     */
+    protected int[][] quantity;
+    protected long[][] unitPriceInPence;
+    protected double[][] unitVolume;
+    protected double[][] unitSurfaceArea;
+
+    /**
+     * Number of segments allocated in every column.
+     */
+    protected int segments;
+
+    /**
+     * Number of order lines held by the store.
+     */
+    protected int size;
+
+    /**
+     * Number of confirmed order lines. Confirmed lines always come first,
+     * rows from confirmedSize up to size are the unconfirmed (preview) lines.
+     */
+    protected int confirmedSize;
+
+    /**
+     * Prefix sums of the quantities of confirmed lines, used to find the line holding a box number.
+     */
+    protected FenwickTree confirmedUnits;
+
+    /**
+     * Number of confirmed lines whose boxes have all been deleted but which still hold a row.
+     */
+    protected int emptyConfirmedLines;
+
+    private static final int INITIAL_SEGMENTS=4;
+    private static final int COMPACT_THRESHOLD=64;
+
+    /**
+     * Constructor for OrderStore.
+     * The order store keeps every order line as a row spread over primitive columns,
+     * so scans over prices and quantities read contiguous arrays.
+     * Confirmed and unconfirmed lines are kept as two consecutive segments of rows.
+     */
+    public OrderStore(){
+        length = new double[INITIAL_SEGMENTS][];
+        height = new double[INITIAL_SEGMENTS][];
+        width = new double[INITIAL_SEGMENTS][];
+        spec = new BoxSpec[INITIAL_SEGMENTS][];
+        quantity = new int[INITIAL_SEGMENTS][];
+        unitPriceInPence = new long[INITIAL_SEGMENTS][];
+        unitVolume = new double[INITIAL_SEGMENTS][];
+        unitSurfaceArea = new double[INITIAL_SEGMENTS][];
+        confirmedUnits = new FenwickTree();
+    }
+
+    /**
+     * Method to add an unconfirmed order line at the end of the store.
+     * @param box Box holding the dimensions and features of the line.
+     * @param numberOfBoxes int quantity of boxes.
+     * @return int row of the new line.
+     */
+    public int add(Box box, int numberOfBoxes){
+        int row = size;
+        int segment = row>>>SEGMENT_SHIFT;
+        int offset = row&SEGMENT_MASK;
+        if(segment==segments){
+            addSegment();
+        }
+        length[segment][offset] = box.getLength();
+        height[segment][offset] = box.getHeight();
+        width[segment][offset] = box.getWidth();
+        spec[segment][offset] = box.getSpec();
+        quantity[segment][offset] = numberOfBoxes;
+        unitPriceInPence[segment][offset] = box.boxCostInPence();
+        unitVolume[segment][offset] = box.getVolume();
+        unitSurfaceArea[segment][offset] = box.getSurfaceArea();
+        size++;
+        return row;
+    }
+
+    /**
+     * Method to remove every unconfirmed order line.
+     * The preview segment is at the end of the store, so it is dropped by moving the end back.
+     */
+    public void clearPreview(){
+        int oldSize = size;
+        size=confirmedSize;
+        releaseRows(oldSize);
+    }
+
+    /**
+     * Method to remove every confirmed order line.
+     * Only the unconfirmed lines, if there are any, are moved to the front of the store,
+     * so the cost grows with the preview rather than with the confirmed order.
+     */
+    public void clearConfirmed(){
+        int oldSize = size;
+        int previewLines = size-confirmedSize;
+        for(int i=0;i<previewLines;i++){
+            copyRow(confirmedSize+i, i);
+        }
+        size=previewLines;
+        confirmedSize=0;
+        confirmedUnits.clear();
+        emptyConfirmedLines=0;
+        releaseRows(oldSize);
+    }
+
+    /**
+     * Method to let go of the rows past the end of the store after lines were removed.
+     * Segments left without rows are released, except the first one, and the spec references
+     * of the freed rows of the last segment kept are cleared, so the BoxSpec flyweights of
+     * removed lines are not kept alive. At most one segment is cleared row by row.
+     * @param oldSize int number of rows before the lines were removed.
+     */
+    private void releaseRows(int oldSize){
+        int kept = Math.max(1, (size+SEGMENT_MASK)>>>SEGMENT_SHIFT);
+        for(int segment=kept;segment<segments;segment++){
+            length[segment] = null;
+            height[segment] = null;
+            width[segment] = null;
+            spec[segment] = null;
+            quantity[segment] = null;
+            unitPriceInPence[segment] = null;
+            unitVolume[segment] = null;
+            unitSurfaceArea[segment] = null;
+        }
+        if(kept<segments){
+            segments = kept;
+        }
+        int last = kept-1;
+        int from = Math.max(size, last<<SEGMENT_SHIFT);
+        int to = Math.min(oldSize, kept<<SEGMENT_SHIFT);
+        if(from<to){
+            Arrays.fill(spec[last], from&SEGMENT_MASK, ((to-1)&SEGMENT_MASK)+1, null);
+        }
+    }
+
+    /**
+     * Method to get the number of order lines.
+     * @return int number of rows.
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Method to get an estimate of the memory used by the allocated segments.
+     * @return long number of bytes.
+     */
+    public long memoryUsed(){
+        return (long)segments*SEGMENT_SIZE*BYTES_PER_LINE;
+    }
+
+    /**
+     * Method to get an estimate of the memory needed once more lines are added.
+     * @param lines int number of lines to add.
+     * @return long number of bytes used by the segments holding every line.
+     */
+    public long memoryNeeded(int lines){
+        long rows = (long)size+lines;
+        long segmentsNeeded = (rows+SEGMENT_SIZE-1)/SEGMENT_SIZE;
+        return Math.max(segmentsNeeded, segments)*SEGMENT_SIZE*BYTES_PER_LINE;
+    }
+
+    /**
+     * Method to get the length of the boxes of a line.
+     * @param row int row of the line.
+     * @return double length of box.
+     */
+    public double getLength(int row){
+        return length[row>>>SEGMENT_SHIFT][row&SEGMENT_MASK];
+    }
+
+    /**
+     * Method to get the height of the boxes of a line.
+     * @param row int row of the line.
+     * @return double height of box.
+     */
+    public double getHeight(int row){
+        return height[row>>>SEGMENT_SHIFT][row&SEGMENT_MASK];
+    }
+
+    /**
+     * Method to get the width of the boxes of a line.
+     * @param row int row of the line.
+     * @return double width of box.
+     */
+    public double getWidth(int row){
+        return width[row>>>SEGMENT_SHIFT][row&SEGMENT_MASK];
+    }
+
+    /**
+     * Method to get the shared specification of the boxes of a line.
+     * @param row int row of the line.
+     * @return BoxSpec specification of box.
+     */
+    public BoxSpec getSpec(int row){
+        return spec[row>>>SEGMENT_SHIFT][row&SEGMENT_MASK];
+    }
+
+    /**
+     * Method to get the cardboard grade of a line.
+     * @param row int row of the line.
+     * @return int cardboard grade.
+     */
+    public int getCardboardGrade(int row){
+        return getSpec(row).getCardboardGrade();
+    }
+
+    /**
+     * Method to get the number of colours of a line.
+     * @param row int row of the line.
+     * @return int number of colours.
+     */
+    public int getNumberOfColours(int row){
+        return getSpec(row).getNumberOfColours();
+    }
+
+    /**
+     * Method to get reinforcement bottom of a line.
+     * @param row int row of the line.
+     * @return boolean reinforcement bottom.
+     */
+    public boolean isReinforcementBottom(int row){
+        return getSpec(row).isReinforcementBottom();
+    }
+
+    /**
+     * Method to get reinforcement corners of a line.
+     * @param row int row of the line.
+     * @return boolean reinforcement corners.
+     */
+    public boolean isReinforcementCorners(int row){
+        return getSpec(row).isReinforcementCorners();
+    }
+
+    /**
+     * Method to get sealable top of a line.
+     * @param row int row of the line.
+     * @return boolean sealable top.
+     */
+    public boolean isSealableTop(int row){
+        return getSpec(row).isSealableTop();
+    }
+
+    /**
+     * Method to get if the user has confirmed a line.
+     * @param row int row of the line.
+     * @return boolean status of line confirmation.
+     */
+    public boolean isConfirmed(int row){
+        return row<confirmedSize;
+    }
+
+    /**
+     * Method to get the number of confirmed order lines.
+     * @return int number of confirmed rows, which are the first rows of the store.
+     */
+    public int confirmedSize(){
+        return confirmedSize;
+    }
+
+    /**
+     * Method to get the number of boxes of a line.
+     * @param row int row of the line.
+     * @return int quantity of boxes.
+     */
+    public int getQuantity(int row){
+        return quantity[row>>>SEGMENT_SHIFT][row&SEGMENT_MASK];
+    }
+
+    /**
+     * Method to get the price of one box of a line.
+     * @param row int row of the line.
+     * @return long price of one box in pence.
+     */
+    public long getUnitPriceInPence(int row){
+        return unitPriceInPence[row>>>SEGMENT_SHIFT][row&SEGMENT_MASK];
+    }
+
+    /**
+     * Method to get the volume of one box of a line.
+     * @param row int row of the line.
+     * @return double volume of box.
+     */
+    public double getUnitVolume(int row){
+        return unitVolume[row>>>SEGMENT_SHIFT][row&SEGMENT_MASK];
+    }
+
+    /**
+     * Method to get the surface area of one box of a line.
+     * @param row int row of the line.
+     * @return double surface area of box.
+     */
+    public double getUnitSurfaceArea(int row){
+        return unitSurfaceArea[row>>>SEGMENT_SHIFT][row&SEGMENT_MASK];
+    }
+
+    /**
+     * Method to confirm every order line of the store.
+     * The preview segment becomes part of the confirmed segment without moving any row.
+     */
+    public void confirmAll(){
+        for(int row=confirmedSize;row<size;row++){
+            confirmedUnits.append(getQuantity(row));
+        }
+        confirmedSize=size;
+    }
+
+    /**
+     * Method to find the confirmed line holding a box.
+     * Boxes are numbered from 1 in the order of the confirmed lines.
+     * @param boxNumber long number of the confirmed box.
+     * @return int row of the line holding the box.
+     */
+    public int findConfirmedBox(long boxNumber){
+        return confirmedUnits.find(boxNumber);
+    }
+
+    /**
+     * Method to count the confirmed boxes held by the lines before a row.
+     * @param row int row of a confirmed line.
+     * @return long number of confirmed boxes in the rows before.
+     */
+    public long confirmedBoxesBefore(int row){
+        return confirmedUnits.prefixSum(row);
+    }
+
+    /**
+     * Method to remove one box from a confirmed line.
+     * Lines left without boxes keep their row until they are more than half of the
+     * confirmed lines, then they are compacted in one pass.
+     * @param row int row of the confirmed line.
+     */
+    public void removeConfirmedBox(int row){
+        int left = --quantity[row>>>SEGMENT_SHIFT][row&SEGMENT_MASK];
+        confirmedUnits.add(row, -1);
+        if(left==0){
+            emptyConfirmedLines++;
+            if(emptyConfirmedLines>COMPACT_THRESHOLD && emptyConfirmedLines*2>confirmedSize){
+                compactConfirmed();
+            }
+        }
+    }
+
+    /**
+     * Method to drop the confirmed lines without boxes, keeping the order of the other lines.
+     */
+    private void compactConfirmed(){
+        int kept=0;
+        for(int row=0;row<size;row++){
+            if(row<confirmedSize && getQuantity(row)==0){
+                continue;
+            }
+            if(kept!=row){
+                copyRow(row, kept);
+            }
+            kept++;
+        }
+        int removed = size-kept;
+        int oldSize = size;
+        size = kept;
+        confirmedSize -= removed;
+        releaseRows(oldSize);
+        rebuildIndex();
+    }
+
+    /**
+     * Method to rebuild the index of confirmed boxes after rows have moved.
+     */
+    private void rebuildIndex(){
+        confirmedUnits.clear();
+        emptyConfirmedLines=0;
+        for(int row=0;row<confirmedSize;row++){
+            int boxes = getQuantity(row);
+            confirmedUnits.append(boxes);
+            if(boxes==0){
+                emptyConfirmedLines++;
+            }
+        }
+    }
+
+    /**
+     * Method to copy every column of one row into another row.
+     * @param from int row to copy.
+     * @param to int row to overwrite.
+     */
+    private void copyRow(int from, int to){
+        int fromSegment = from>>>SEGMENT_SHIFT;
+        int fromOffset = from&SEGMENT_MASK;
+        int toSegment = to>>>SEGMENT_SHIFT;
+        int toOffset = to&SEGMENT_MASK;
+        length[toSegment][toOffset] = length[fromSegment][fromOffset];
+        height[toSegment][toOffset] = height[fromSegment][fromOffset];
+        width[toSegment][toOffset] = width[fromSegment][fromOffset];
+        spec[toSegment][toOffset] = spec[fromSegment][fromOffset];
+        quantity[toSegment][toOffset] = quantity[fromSegment][fromOffset];
+        unitPriceInPence[toSegment][toOffset] = unitPriceInPence[fromSegment][fromOffset];
+        unitVolume[toSegment][toOffset] = unitVolume[fromSegment][fromOffset];
+        unitSurfaceArea[toSegment][toOffset] = unitSurfaceArea[fromSegment][fromOffset];
+    }
+
+    /**
+     * Method to allocate one more segment in every column.
+     * Only the small arrays of segment references are copied when they are full.
+     */
+    private void addSegment(){
+        if(segments==quantity.length){
+            int capacity = segments*2;
+            length = Arrays.copyOf(length, capacity);
+            height = Arrays.copyOf(height, capacity);
+            width = Arrays.copyOf(width, capacity);
+            spec = Arrays.copyOf(spec, capacity);
+            quantity = Arrays.copyOf(quantity, capacity);
+            unitPriceInPence = Arrays.copyOf(unitPriceInPence, capacity);
+            unitVolume = Arrays.copyOf(unitVolume, capacity);
+            unitSurfaceArea = Arrays.copyOf(unitSurfaceArea, capacity);
+        }
+        length[segments] = new double[SEGMENT_SIZE];
+        height[segments] = new double[SEGMENT_SIZE];
+        width[segments] = new double[SEGMENT_SIZE];
+        spec[segments] = new BoxSpec[SEGMENT_SIZE];
+        quantity[segments] = new int[SEGMENT_SIZE];
+        unitPriceInPence[segments] = new long[SEGMENT_SIZE];
+        unitVolume[segments] = new double[SEGMENT_SIZE];
+        unitSurfaceArea[segments] = new double[SEGMENT_SIZE];
+        segments++;
+    }
+}
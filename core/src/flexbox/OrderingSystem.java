@@ -0,0 +1,734 @@
+package flexbox;
+
+import java.io.IOException;
+import java.util.*;
+
+public class OrderingSystem {
+    /**
+     * Columnar store containing the order lines made by the user.
+     * Each line holds one box specification and the number of boxes ordered.
+     */
+    protected OrderStore orderStore;
+    
+    /**
+     * BoxSelector to facilitate the creation of type of box
+     * based on FlexBox specifications.
+     */
+    protected BoxSelector boxSelector;
+    
+    /**
+     * Memory in bytes the order book may use before new orders are refused.
+     * Set with -Dflexbox.orderMemoryBudget, a quarter of the maximum heap by default.
+     */
+    protected long memoryBudget;
+    
+    /**
+     * Running totals of unconfirmed boxes, updated by every change to the order.
+     */
+    private int previewItems;
+    private long previewPriceInPence;
+    private double previewVolume;
+    private double previewSurfaceArea;
+    
+    /**
+     * Running totals of confirmed boxes, updated by every change to the order.
+     */
+    private int confirmedItems;
+    private long confirmedPriceInPence;
+    private double confirmedVolume;
+    private double confirmedSurfaceArea;
+    
+    /**
+     * Journal recording every change to the order, null if changes are not recorded.
+     * Each change is appended before it is made. Confirming, deleting, clearing and
+     * completing orders also wait until the journal has it on disk.
+     * Changes are made while holding the lock of the ordering system, so another thread
+     * locking it sees an order book matching the end of the journal.
+     */
+    protected OrderJournal journal;
+    
+    /**
+     * Archive receiving completed orders, null if they are not kept.
+     */
+    protected OrderArchive archive;
+    
+    /**
+     * Listeners told about every change to the order.
+     */
+    private final List<OrderListener> listeners = new ArrayList<>();
+    
+    /**
+     * Constructor Class for OrderingSystem.
+     * Ordering System manages the communication between the GUI and the classes
+     * from back-end.
+     */
+    public OrderingSystem(){
+        orderStore = new OrderStore();
+        boxSelector = new BoxSelector();
+        memoryBudget = Long.getLong("flexbox.orderMemoryBudget", Runtime.getRuntime().maxMemory()/4);
+    }
+    
+    /**
+     * Method to add orders to the orderStore
+     * @param length double length of box.
+     * @param height double height of box. 
+     * @param width double width of box.
+     * @param cardboardGrade Integer containing the grade of cardboard.
+     * @param numberOfColours Integer number of colours requested.
+     * @param reinforcementBottom Boolean if user specifies reinforcement bottom.
+     * @param reinforcementCorners Boolean if user specifies reinforcement corners.
+     * @param sealableTop Boolean if user specifies sealable top.
+     * @param numberOfBoxes int how many boxes to add.
+     * @throws IOException if the journal can't record the change; the order is not changed.
+     */
+    public void addPreviewOrder(double length, double height, double width, int cardboardGrade, 
+            int numberOfColours, boolean reinforcementBottom,boolean reinforcementCorners, 
+            boolean sealableTop,int numberOfBoxes) throws IOException{
+        
+        if(numberOfBoxes>0){
+            addPreviewOrder(retBoxType(length,height,width,cardboardGrade,
+                    numberOfColours,reinforcementBottom,reinforcementCorners,sealableTop), numberOfBoxes);
+        }
+    }
+    
+    /**
+     * Overloaded method to add a box that has already been made and priced to the orderStore.
+     * Boxes can be made on any thread with retBoxType(), but the order itself must only
+     * be changed from one thread.
+     * @param box Box to add, ignored if null.
+     * @param numberOfBoxes int how many boxes to add.
+     * @throws IOException if the journal can't record the change; the order is not changed.
+     */
+    public synchronized void addPreviewOrder(Box box, int numberOfBoxes) throws IOException{
+        if(box!=null && numberOfBoxes>0){
+            if(journal!=null){
+                journal.logAdd(box, numberOfBoxes);
+            }
+            orderStore.add(box, numberOfBoxes);
+            previewItems += numberOfBoxes;
+            previewPriceInPence += box.boxCostInPence()*numberOfBoxes;
+            previewVolume += box.getVolume()*numberOfBoxes;
+            previewSurfaceArea += box.getSurfaceArea()*numberOfBoxes;
+            fireOrderChanged(OrderEvent.Type.TOTALS_CHANGED, 0, -1);
+        }
+    }
+    
+    /**
+     * Method to clear the preview order. Deletes all boxes that are not confirmed by the user.
+     * @throws IOException if the journal can't record the change; the order is not changed.
+     */
+    public synchronized void clearPreviewOrder() throws IOException{
+        if(journal!=null && previewItems>0){
+            journal.log(OrderJournal.CLEAR_PREVIEW);
+        }
+        orderStore.clearPreview();
+        previewItems=0;
+        previewPriceInPence=0;
+        previewVolume=0;
+        previewSurfaceArea=0;
+        fireOrderChanged(OrderEvent.Type.TOTALS_CHANGED, 0, -1);
+    }
+    
+    /**
+     * Method to delete all boxes confirmed by the user.
+     * @throws IOException if the journal can't record the change. The order is not changed if
+     * the record could not be appended, and is changed if it could not be forced to disk.
+     */
+    public void clearAllOrder() throws IOException{
+        synchronized(this){
+            if(journal!=null && confirmedItems>0){
+                journal.log(OrderJournal.CLEAR);
+            }
+            clearConfirmed();
+        }
+        syncJournal();
+    }
+    
+    /**
+     * Method to complete the order. The confirmed boxes are archived as sold and removed.
+     * The order is on disk in the archive before the journal records its completion, so a
+     * failed archive leaves the order and the journal as they were. Replaying a completion
+     * whose id is already archived does not archive it twice.
+     * If the application stops after archiving and before the completion reaches the journal,
+     * the confirmed lines come back on restart although the order is in the archive.
+     * @return long id of the order in the archive, 0 if it is not archived.
+     * @throws IOException if the order could not be archived, and is then kept, or its completion
+     * could not be recorded by the journal. The order is kept if it was neither archived nor
+     * appended to the journal, and removed otherwise.
+     */
+    public synchronized long finalizeOrder() throws IOException{
+        long timestamp = System.currentTimeMillis();
+        return completeOrder(archiveOrder(timestamp, null), timestamp);
+    }
+    
+    /**
+     * Method to archive the confirmed boxes as sold, the first step of finalizeOrder().
+     * The order book is only read, so this can run away from the Event Dispatch Thread
+     * while nothing changes the order until completeOrder() is called with the id returned.
+     * @param timestamp long time the order is completed, in milliseconds since the epoch.
+     * @param progress OrderArchive.Progress told about the lines archived and able to stop, or null.
+     * @return long id of the order in the archive, 0 if it is not archived.
+     * @throws IOException if the order could not be archived or the progress stopped it,
+     * an InterruptedIOException then. The order is kept either way.
+     */
+    public synchronized long archiveOrder(long timestamp, OrderArchive.Progress progress) throws IOException{
+        if(archive==null || confirmedItems==0){
+            return 0;
+        }
+        return archive.append(orderStore, archive.nextOrderId(), timestamp, progress);
+    }
+    
+    /**
+     * Method to record the completion of an archived order and remove the confirmed boxes,
+     * the second step of finalizeOrder(). The listeners are told once.
+     * @param orderId long id returned by archiveOrder().
+     * @param timestamp long time given to archiveOrder().
+     * @return long id of the order in the archive, 0 if it is not archived.
+     * @throws IOException if the journal could not record the completion. The order is kept
+     * if it was neither archived nor appended to the journal, and removed otherwise.
+     */
+    public synchronized long completeOrder(long orderId, long timestamp) throws IOException{
+        boolean logged = journal!=null && confirmedItems>0;
+        if(logged){
+            try{
+                journal.logFinalize(orderId, timestamp);
+            }
+            catch(IOException ex){
+                if(orderId!=0){
+                    clearConfirmed();
+                }
+                throw ex;
+            }
+        }
+        clearConfirmed();
+        if(logged){
+            journal.sync();
+        }
+        return orderId;
+    }
+    
+    /**
+     * Method to complete the order again while the journal is replayed.
+     * The order is archived under its recorded id and time unless the archive already has it.
+     * @param orderId long id recorded when the order was completed, 0 if it was not archived.
+     * @param timestamp long time recorded when the order was completed.
+     * @throws IOException if the order could not be archived.
+     */
+    synchronized void replayFinalize(long orderId, long timestamp) throws IOException{
+        if(archive!=null && orderId!=0 && confirmedItems>0){
+            archive.append(orderStore, orderId, timestamp);
+        }
+        clearConfirmed();
+    }
+    
+    /**
+     * Method to remove every confirmed box and tell the listeners.
+     */
+    private void clearConfirmed(){
+        int removed = confirmedItems;
+        orderStore.clearConfirmed();
+        confirmedItems=0;
+        confirmedPriceInPence=0;
+        confirmedVolume=0;
+        confirmedSurfaceArea=0;
+        if(removed>0){
+            fireOrderChanged(OrderEvent.Type.ROWS_DELETED, 0, removed-1);
+        }
+        fireOrderChanged(OrderEvent.Type.TOTALS_CHANGED, 0, -1);
+    }
+    
+    /**
+     * Method to calculate the number of unconfirmed boxes made by the user.
+     * @return int number of uncorfirmed boxes.
+     */
+    public int numberOfPreviewItems(){
+        return previewItems;
+    }
+    
+    /**
+     * Method to calculate the number of confirmed boxes made by the user.
+     * @return int number of corfirmed boxes.
+     */
+    public int numOfTotalItems(){
+        return confirmedItems;
+    }
+    
+    /**
+     * Method to delete a specific order. Checks if the deletion is valid before execuring.
+     * The order number counts single confirmed boxes, so one box is removed from the line holding it.
+     * The line is found through the index of confirmed boxes in O(log n).
+     * @param orderNumber int Order to delete.
+     * @throws IOException if the journal can't record the change. The order is not changed if
+     * the record could not be appended, and is changed if it could not be forced to disk.
+     */
+    public void deleteOrder(int orderNumber) throws IOException{
+        synchronized(this){
+            if(orderNumber<1||orderNumber>confirmedItems){
+                return;
+            }
+            if(journal!=null){
+                journal.logDelete(orderNumber);
+            }
+            int row = orderStore.findConfirmedBox(orderNumber);
+            confirmedItems -= 1;
+            confirmedPriceInPence -= orderStore.getUnitPriceInPence(row);
+            confirmedVolume -= orderStore.getUnitVolume(row);
+            confirmedSurfaceArea -= orderStore.getUnitSurfaceArea(row);
+            orderStore.removeConfirmedBox(row);
+            fireOrderChanged(OrderEvent.Type.ROWS_DELETED, orderNumber-1, orderNumber-1);
+            fireOrderChanged(OrderEvent.Type.TOTALS_CHANGED, 0, -1);
+        }
+        syncJournal();
+    }
+    
+    /**
+     * Method to see if the there are any uncorfirmed boxes in order list.
+     * @return boolean true if there are uncorfirmed boxes.
+     */
+    public boolean previewListIsEmpty(){
+        return previewItems==0;
+    }
+    
+    /**
+     * Method to change the status of box to confirmed boxes when the user request.
+     * @throws IOException if the journal can't record the change. The order is not changed if
+     * the record could not be appended, and is changed if it could not be forced to disk.
+     */
+    public void confirmOrderBox() throws IOException{
+        synchronized(this){
+            int firstRow = confirmedItems;
+            int added = previewItems;
+            if(journal!=null && added>0){
+                journal.log(OrderJournal.CONFIRM);
+            }
+            orderStore.confirmAll();
+            confirmedItems += previewItems;
+            confirmedPriceInPence += previewPriceInPence;
+            confirmedVolume += previewVolume;
+            confirmedSurfaceArea += previewSurfaceArea;
+            previewItems=0;
+            previewPriceInPence=0;
+            previewVolume=0;
+            previewSurfaceArea=0;
+            if(added>0){
+                fireOrderChanged(OrderEvent.Type.ROWS_INSERTED, firstRow, firstRow+added-1);
+            }
+            fireOrderChanged(OrderEvent.Type.TOTALS_CHANGED, 0, -1);
+        }
+        syncJournal();
+    }
+    
+    /**
+     * Method to add order lines straight to the confirmed order, as a file import does.
+     * The journal records them as added and confirmed, and the listeners are told once for all the lines.
+     * Lines are taken in order until one does not fit in the order book.
+     * @param boxes Box[] box of each line, null entries are skipped.
+     * @param quantities int[] number of boxes of each line.
+     * @return int number of entries taken; lines from there on were not added.
+     * @throws IOException if the journal can't record the lines. The order is not changed if
+     * the records could not be appended, and is changed if they could not be forced to disk.
+     * @throws IllegalStateException if the preview is not empty.
+     */
+    public int addConfirmedOrders(Box[] boxes, int[] quantities) throws IOException{
+        int end=0;
+        synchronized(this){
+            if(previewItems>0){
+                throw new IllegalStateException("Lines can't be confirmed directly while the preview has boxes");
+            }
+            int lines=0;
+            long numberOfBoxes=0;
+            while(end<boxes.length){
+                if(boxes[end]!=null){
+                    if(!canAdmit(lines+1, numberOfBoxes+quantities[end])){
+                        break;
+                    }
+                    lines++;
+                    numberOfBoxes += quantities[end];
+                }
+                end++;
+            }
+            if(lines==0){
+                return end;
+            }
+            if(journal!=null){
+                for(int i=0;i<end;i++){
+                    if(boxes[i]!=null){
+                        journal.logAdd(boxes[i], quantities[i]);
+                    }
+                }
+                journal.log(OrderJournal.CONFIRM);
+            }
+            int firstRow = confirmedItems;
+            for(int i=0;i<end;i++){
+                Box box = boxes[i];
+                if(box!=null){
+                    orderStore.add(box, quantities[i]);
+                    confirmedPriceInPence += box.boxCostInPence()*quantities[i];
+                    confirmedVolume += box.getVolume()*quantities[i];
+                    confirmedSurfaceArea += box.getSurfaceArea()*quantities[i];
+                }
+            }
+            orderStore.confirmAll();
+            confirmedItems += numberOfBoxes;
+            fireOrderChanged(OrderEvent.Type.ROWS_INSERTED, firstRow, firstRow+(int)numberOfBoxes-1);
+            fireOrderChanged(OrderEvent.Type.TOTALS_CHANGED, 0, -1);
+        }
+        syncJournal();
+        return end;
+    }
+    
+    /**
+     * Method to wait until the journal has the changes made so far on disk.
+     * It is called without holding the lock, so changes made by several threads at once
+     * share one fsync of the journal.
+     * @throws IOException if the journal could not write them.
+     */
+    private void syncJournal() throws IOException{
+        OrderJournal journal = getJournal();
+        if(journal!=null){
+            journal.sync();
+        }
+    }
+    
+    /**
+     * Method to record every further change to the order in a journal.
+     * @param journal OrderJournal to append to, or null to stop recording.
+     */
+    public synchronized void setJournal(OrderJournal journal){
+        this.journal = journal;
+    }
+    
+    /**
+     * Method to keep every completed order in an archive.
+     * @param archive OrderArchive to append to, or null to stop archiving.
+     */
+    public void setArchive(OrderArchive archive){
+        this.archive = archive;
+    }
+    
+    /**
+     * Method to get the archive of completed orders.
+     * @return OrderArchive, null if completed orders are not kept.
+     */
+    public OrderArchive getArchive(){
+        return archive;
+    }
+    
+    /**
+     * Method to get the journal recording the changes to the order.
+     * @return OrderJournal, null if changes are not recorded.
+     */
+    public synchronized OrderJournal getJournal(){
+        return journal;
+    }
+    
+    /**
+     * Method to register a listener told about every change to the order.
+     * @param listener OrderListener to add.
+     */
+    public void addOrderListener(OrderListener listener){
+        listeners.add(listener);
+    }
+    
+    /**
+     * Method to stop telling a listener about changes to the order.
+     * @param listener OrderListener to remove.
+     */
+    public void removeOrderListener(OrderListener listener){
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Method to tell every listener about a change.
+     * @param type OrderEvent.Type kind of change.
+     * @param firstRow int first confirmed box affected.
+     * @param lastRow int last confirmed box affected.
+     */
+    protected void fireOrderChanged(OrderEvent.Type type, int firstRow, int lastRow){
+        if(listeners.isEmpty()){
+            return;
+        }
+        OrderEvent event = new OrderEvent(this, type, firstRow, lastRow);
+        for(OrderListener listener : listeners){
+            listener.orderChanged(event);
+        }
+    }
+    
+    /**
+     * Method to check if the order list has exceeded its capacity.
+     * The capacity is given by the memory budget of the order book.
+     * @return boolean true if maximum capacity has achieved.
+     */
+    public boolean isTotalOrderCompleted(){
+        return !canAdmit(0, 0);
+    }
+    
+    /**
+     * Method to check if new order lines fit in the order book.
+     * @param lines int number of order lines to add.
+     * @param numberOfBoxes long number of boxes in those lines.
+     * @return true if the lines fit in the memory budget and the box count stays within range.
+     */
+    public boolean canAdmit(int lines, long numberOfBoxes){
+        return orderStore.memoryNeeded(lines)<=memoryBudget &&
+                (long)confirmedItems+previewItems+numberOfBoxes<=Integer.MAX_VALUE;
+    }
+    
+    /**
+     * Method to change the memory budget of the order book.
+     * @param memoryBudget long number of bytes the order book may use.
+     */
+    public void setMemoryBudget(long memoryBudget){
+        this.memoryBudget = memoryBudget;
+    }
+    
+    /**
+     * Method to check if there are any boxes in the order, confirmed or not.
+     * Counts boxes rather than lines, since the store keeps lines emptied by deletions for a while.
+     * @return true if there are no boxes in the order.
+     */
+    public boolean isTotalOrderEmpty(){
+        return(confirmedItems+previewItems==0);
+    }
+    
+    /**
+     * Method to display uncorfirmed boxes from the same charactetistics. It will display the size of uncorfirmed box.
+     * @return String information size about the uncorfirmed box.
+     */
+    public String disPreOrdBoxSize(){
+        if(!previewListIsEmpty()){
+            return lastPreviewBox().boxSizeInformation();
+        }
+        return"";
+    }
+    
+    /**
+     * Method to display uncorfirmed boxes from the same charactetistics. It will display the feature of uncorfirmed box.
+     * @return String information aabout features of the uncorfirmed box.
+     */
+    public String disPreOrdFeatureInformation(){
+        if(!previewListIsEmpty()){
+            return lastPreviewBox().featuresInformation();
+        }
+        return"";
+    }
+    
+    /**
+     * Method to display uncorfirmed boxes from the same charactetistics. It will display the costs of uncorfirmed box.
+     * @return String information about cost of producing the uncorfirmed box.
+     */
+    public String disPreOrdPriceBreakdown(){
+        if(!previewListIsEmpty()){
+            return lastPreviewBox().costBreakdownInformation();
+        }
+        return"";
+    }
+    
+    /**
+     * Method to get the box of the last unconfirmed line for preview display purposes.
+     * @return Box of the last order line.
+     */
+    private Box lastPreviewBox(){
+        return getOrderLine(orderStore.size()-1).getBox();
+    }
+    
+    /**
+     * Method to get the order store for read access, e.g. by table models.
+     * @return OrderStore holding the order lines.
+     */
+    public OrderStore getOrderStore(){
+        return orderStore;
+    }
+    
+    /**
+     * Method to get the number of order lines, confirmed or not.
+     * @return int number of order lines.
+     */
+    public int numberOfOrderLines(){
+        return orderStore.size();
+    }
+    
+    /**
+     * Method to create a view of an order line for display purposes.
+     * The box is built from the order store when requested; changing it does not change the order.
+     * @param row int position of the line in the order.
+     * @return OrderLine view of the line.
+     */
+    public OrderLine getOrderLine(int row){
+        Box box = createBox(orderStore.getLength(row), orderStore.getHeight(row),
+                orderStore.getWidth(row), orderStore.getSpec(row));
+        OrderLine line = new OrderLine(box, orderStore.getQuantity(row));
+        if(orderStore.isConfirmed(row)){
+            line.confirm();
+        }
+        return line;
+    }
+    
+    /**
+     * Method to find if there any confirmed boxes in the list for GUI display purposes.
+     * @return true if there are confirmed box in the list
+     */
+    public boolean isConfirmedOrder(){
+        return confirmedItems>0;
+    }
+    
+    /**
+     * Method to calcualte the price of unconfirmed boxes.
+     * @return double total price of unconfirmed boxes.
+     */
+    public double getPreviewOrderPrice(){
+        return Money.toPounds(getPreviewOrderPriceInPence());
+    }
+    
+    /**
+     * Method to calculate the price of unconfirmed boxes in pence.
+     * Each box is rounded to the penny once, so the total is exact.
+     * @return long total price of unconfirmed boxes in pence.
+     */
+    public long getPreviewOrderPriceInPence(){
+        return previewPriceInPence;
+    }
+    
+    /**
+     * Method to calculate the price of confirmed boxes.
+     * @return double total price of confirmed boxes.
+     */
+    public double getOrderPrice(){
+        return Money.toPounds(getOrderPriceInPence());
+    }
+    
+    /**
+     * Method to calculate the price of confirmed boxes in pence.
+     * Each box is rounded to the penny once, so the total is exact.
+     * @return long total price of confirmed boxes in pence.
+     */
+    public long getOrderPriceInPence(){
+        return confirmedPriceInPence;
+    }
+    
+    /**
+     * Method to get the volume of all unconfirmed boxes.
+     * @return double total volume of unconfirmed boxes.
+     */
+    public double getPreviewOrderVolume(){
+        return previewVolume;
+    }
+    
+    /**
+     * Method to get the surface area of all unconfirmed boxes.
+     * @return double total surface area of unconfirmed boxes.
+     */
+    public double getPreviewOrderSurfaceArea(){
+        return previewSurfaceArea;
+    }
+    
+    /**
+     * Method to get the volume of all confirmed boxes.
+     * @return double total volume of confirmed boxes.
+     */
+    public double getOrderVolume(){
+        return confirmedVolume;
+    }
+    
+    /**
+     * Method to get the surface area of all confirmed boxes.
+     * @return double total surface area of confirmed boxes.
+     */
+    public double getOrderSurfaceArea(){
+        return confirmedSurfaceArea;
+    }
+    
+    /**
+     * Method to check the input size given by the user.
+     * @param length double length of box.
+     * @param height double height of box. 
+     * @param width double width of box.
+     * @return true if it is within the range.
+     */
+    public boolean isSizeValid(double length, double height, double width){
+        return ((length>=0.3&&height>=0.3&&width>=0.3)&&
+                (length<=10&&height<=10&&width<=10));
+    }
+    
+    /**
+     * Method to call box selector and check if the input features are valid,
+     * @param cardboardGrade Integer containing the grade of cardboard.
+     * @param numberOfColours Integer number of colours requested.
+     * @param reinforcementBottom Boolean if user specifies reinforcement bottom.
+     * @param reinforcementCorners Boolean if user specifies reinforcement corners.
+     * @see BoxSelector Class.
+     * @return true if the hashmap matches the set of characteristics of box
+     */
+    public boolean isBoxCanBeMade(int cardboardGrade,int numberOfColours, boolean reinforcementBottom,boolean reinforcementCorners){
+        return(boxSelector.boxIsValid(cardboardGrade, numberOfColours, reinforcementBottom, reinforcementCorners));
+    }
+    
+    /**
+     * Method to suggest the cheapest box that can be made with at least the requested features.
+     * Used when isBoxCanBeMade() returns false.
+     * @param cardboardGrade Integer containing the grade of cardboard.
+     * @param numberOfColours Integer number of colours requested.
+     * @param reinforcementBottom Boolean if user specifies reinforcement bottom.
+     * @param reinforcementCorners Boolean if user specifies reinforcement corners.
+     * @param sealableTop Boolean if user specifies sealable top.
+     * @see BoxSelector Class.
+     * @return BoxSpec of the suggested box, null if no box covers the request.
+     */
+    public BoxSpec suggestUpgrade(int cardboardGrade,int numberOfColours, boolean reinforcementBottom,
+            boolean reinforcementCorners, boolean sealableTop){
+        return boxSelector.returnUpgrade(cardboardGrade, numberOfColours, reinforcementBottom,
+                reinforcementCorners, sealableTop);
+    }
+    
+    /**
+     * Method to create the box type based on the set of features and box dimension.
+     * Calls Box Selector to give the value of matching keys.
+     * @param length double length of box.
+     * @param height double height of box. 
+     * @param width double width of box.
+     * @param cardboardGrade Integer containing the grade of cardboard.
+     * @param numberOfColours Integer number of colours requested.
+     * @param reinforcementBottom Boolean if user specifies reinforcement bottom.
+     * @param reinforcementCorners Boolean if user specifies reinforcement corners.
+     * @param sealableTop Boolean if user specifies sealable top.
+     * @return Object BoxType given the set of characteristics.
+     */
+    public Box retBoxType(double length, double height, double width,
+            int cardboardGrade,int numberOfColours, boolean reinforcementBottom,
+            boolean reinforcementCorners, boolean sealableTop){
+        
+        BoxSpec spec = boxSelector.returnBoxSpec(cardboardGrade,numberOfColours,
+                reinforcementBottom,reinforcementCorners,sealableTop);
+        if(spec==null){
+            return null;
+        }
+        return createBox(length, height, width, spec);
+    }
+    
+    /**
+     * Method to create the box type of a shared specification.
+     * @param length double length of box.
+     * @param height double height of box. 
+     * @param width double width of box.
+     * @param spec BoxSpec features of box.
+     * @return Object BoxType given the specification.
+     * @throws IllegalArgumentException if the application has no class for the type.
+     */
+    protected Box createBox(double length, double height, double width, BoxSpec spec){
+        switch (spec.getType()) {
+            
+            case 1:
+                return new BoxType1(length, height, width, spec);
+            case 2:
+                return new BoxType2(length, height, width, spec);
+            case 3:
+                return new BoxType3(length, height, width, spec);
+            case 4:
+                return new BoxType4(length, height, width, spec);
+            case 5:
+                return new BoxType5(length, height, width, spec);
+            default:
+                throw new IllegalArgumentException("No class for box type "+spec.getType());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+package flexbox;
+
+public class PricingEngine {
+
+    /**
+     * Positions of the costs inside a cost breakdown array.
+     */
+    public static final int BASE=0;
+    public static final int COLOUR=1;
+    public static final int BOTTOM=2;
+    public static final int CORNERS=3;
+    public static final int SEALABLE=4;
+    public static final int TOTAL=5;
+    public static final int BREAKDOWN_SIZE=6;
+
+    /**
+     * Number of (grade, colours, bottom, corners, sealable top) combinations priced by the table.
+     */
+    public static final int COMBINATIONS=5*3*2*2*2;
+
+    /**
+     * Flat table holding one row of rates per combination.
+     * The first five entries of a row are the grade rate and the colour, bottom, corners
+     * and sealable top percentages (zero when the feature is not requested).
+     * The last entry is the combined factor applied to the surface area.
+     */
+    private static final int STRIDE=6;
+    private static final int FACTOR=5;
+    private static final double[] RATES = buildRates();
+
+    /**
+     * Pricing engine only offers static lookups.
+     */
+    private PricingEngine(){}
+
+    /**
+     * Method to pack a set of box features into a combination key.
+     * Colours outside the priced range cost nothing, as in the original price list.
+     * @param cardboardGrade int grade of cardboard, from 1 to 5.
+     * @param numberOfColours int number of colours.
+     * @param reinforcementBottom boolean reinforcement bottom.
+     * @param reinforcementCorners boolean reinforcement corners.
+     * @param sealableTop boolean sealable top.
+     * @return int key of the combination or -1 if the grade has no price.
+     */
+    public static int key(int cardboardGrade, int numberOfColours, boolean reinforcementBottom,
+            boolean reinforcementCorners, boolean sealableTop){
+        if(cardboardGrade<1||cardboardGrade>5){
+            return -1;
+        }
+        int colours = (numberOfColours==1||numberOfColours==2) ? numberOfColours : 0;
+        int key = (cardboardGrade-1)*3+colours;
+        key = key*2+(reinforcementBottom ? 1 : 0);
+        key = key*2+(reinforcementCorners ? 1 : 0);
+        key = key*2+(sealableTop ? 1 : 0);
+        return key;
+    }
+
+    /**
+     * Method to get the combined price per square metre of a combination.
+     * Useful to rank combinations; the exact price comes from breakdown().
+     * @param key int combination key.
+     * @return double price factor applied to the surface area, 0 for unpriced keys.
+     */
+    public static double factor(int key){
+        if(key<0){
+            return 0;
+        }
+        return RATES[key*STRIDE+FACTOR];
+    }
+
+    /**
+     * Method to fill the cost breakdown of a box.
+     * Performs the same operations in the same order as the original price list,
+     * so the results are bit-identical to it.
+     * @param surfaceArea double surface area of box.
+     * @param key int combination key.
+     * @param breakdown double[] array of BREAKDOWN_SIZE entries to fill.
+     */
+    public static void breakdown(double surfaceArea, int key, double[] breakdown){
+        if(key<0){
+            for(int i=0;i<BREAKDOWN_SIZE;i++){
+                breakdown[i]=0;
+            }
+            return;
+        }
+        int row = key*STRIDE;
+        double base = surfaceArea*RATES[row];
+        breakdown[BASE] = base;
+        breakdown[COLOUR] = base*RATES[row+COLOUR];
+        breakdown[BOTTOM] = base*RATES[row+BOTTOM];
+        breakdown[CORNERS] = base*RATES[row+CORNERS];
+        breakdown[SEALABLE] = base*RATES[row+SEALABLE];
+        double cost=0;
+        cost += breakdown[BASE];
+        cost += breakdown[COLOUR];
+        cost += breakdown[BOTTOM];
+        cost += breakdown[CORNERS];
+        cost += breakdown[SEALABLE];
+        breakdown[TOTAL] = cost;
+    }
+
+    /**
+     * Method to calculate the total price of a box.
+     * @param surfaceArea double surface area of box.
+     * @param key int combination key.
+     * @return double price of box, identical to the TOTAL entry of breakdown().
+     */
+    public static double price(double surfaceArea, int key){
+        if(key<0){
+            return 0;
+        }
+        int row = key*STRIDE;
+        double base = surfaceArea*RATES[row];
+        double cost=0;
+        cost += base;
+        cost += base*RATES[row+COLOUR];
+        cost += base*RATES[row+BOTTOM];
+        cost += base*RATES[row+CORNERS];
+        cost += base*RATES[row+SEALABLE];
+        return cost;
+    }
+
+    /**
+     * Method to build the rate table from the FlexBox price list.
+     * @return double[] rates for every combination.
+     */
+    private static double[] buildRates(){
+        double[] gradeRates = {0.55, 0.65, 0.82, 0.98, 1.50};
+        double[] colourRates = {0, 0.12, 0.15};
+        double[] rates = new double[COMBINATIONS*STRIDE];
+        for(int grade=1;grade<=5;grade++){
+            for(int colours=0;colours<=2;colours++){
+                for(int features=0;features<8;features++){
+                    boolean bottom = (features&4)!=0;
+                    boolean corners = (features&2)!=0;
+                    boolean sealable = (features&1)!=0;
+                    int row = key(grade, colours, bottom, corners, sealable)*STRIDE;
+                    rates[row] = gradeRates[grade-1];
+                    rates[row+COLOUR] = colourRates[colours];
+                    rates[row+BOTTOM] = bottom ? 0.13 : 0;
+                    rates[row+CORNERS] = corners ? 0.12 : 0;
+                    rates[row+SEALABLE] = sealable ? 0.10 : 0;
+                    rates[row+FACTOR] = rates[row]*(1+rates[row+COLOUR]+rates[row+BOTTOM]
+                            +rates[row+CORNERS]+rates[row+SEALABLE]);
+                }
+            }
+        }
+        return rates;
+    }
+}
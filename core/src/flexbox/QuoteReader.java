@@ -0,0 +1,416 @@
+package flexbox;
+
+import java.io.*;
+import java.util.*;
+
+class QuoteReader {
+
+    /**
+     * Number of rows validated and priced together by one task.
+     */
+    static final int CHUNK_ROWS=4096;
+
+    /**
+     * Number of fields of a row: length, height, width, grade, colours,
+     * reinforcement bottom, reinforcement corners, sealable top and quantity.
+     */
+    static final int FIELDS=9;
+
+    private final Reader in;
+    private char[] buffer = new char[1<<16];
+    private int start, end;
+    private long lineNumber;
+    private char separator;
+    private boolean eof;
+
+    /**
+     * Constructor for QuoteReader.
+     * The reader cuts a file of box specifications into chunks of rows, copying the characters
+     * of every row of a chunk into one array so the rows can be parsed in place on any thread.
+     * Fields are separated by commas, or by semicolons, tabs or spaces if the first line uses them;
+     * flags are yes/no, true/false or 1/0. A first row that does not start with a number is a header.
+     * @param in Reader of the rows.
+     */
+    QuoteReader(Reader in){
+        this.in = in;
+    }
+
+    /**
+     * Method to read the next chunk of rows.
+     * @return Chunk of up to CHUNK_ROWS rows, null at the end of the input.
+     * @throws IOException if the input can't be read.
+     */
+    Chunk next() throws IOException{
+        Chunk chunk = new Chunk(lineNumber+1);
+        while((!eof || start<end) && chunk.lines<CHUNK_ROWS){
+            int newline=-1;
+            for(int i=start;i<end;i++){
+                if(buffer[i]=='\n'){
+                    newline=i;
+                    break;
+                }
+            }
+            if(newline<0 && !eof){
+                if(start>0){
+                    System.arraycopy(buffer, start, buffer, 0, end-start);
+                    end -= start;
+                    start=0;
+                }
+                if(end==buffer.length){
+                    buffer = Arrays.copyOf(buffer, buffer.length*2);
+                }
+                int read = in.read(buffer, end, buffer.length-end);
+                if(read<0){
+                    eof=true;
+                }
+                else{
+                    end += read;
+                }
+                continue;
+            }
+            int lineEnd = newline<0 ? end : newline;
+            lineNumber++;
+            if(separator==0){
+                separator = separator(buffer, start, lineEnd);
+            }
+            chunk.addLine(buffer, start, lineEnd);
+            start = newline<0 ? end : newline+1;
+        }
+        chunk.separator = separator;
+        return chunk.lines>0 ? chunk : null;
+    }
+
+    /**
+     * Method to find the field separator used by a line.
+     * @param chars char[] holding the line.
+     * @param from int start of the line.
+     * @param to int end of the line.
+     * @return char separator, a space for fields separated by runs of spaces.
+     */
+    private static char separator(char[] chars, int from, int to){
+        boolean comma=false;
+        for(int i=from;i<to;i++){
+            if(chars[i]==';'||chars[i]=='\t'){
+                return chars[i];
+            }
+            comma |= chars[i]==',';
+        }
+        if(comma){
+            return ',';
+        }
+        for(int i=from;i<to;i++){
+            if(chars[i]==' '){
+                return ' ';
+            }
+        }
+        return ',';
+    }
+
+    /**
+     * Method to read a flag of a box specification.
+     * @param flag CharSequence of the flag.
+     * @return int 1 for yes, true or 1, 0 for no, false or 0, -1 otherwise.
+     */
+    static int parseFlag(CharSequence flag){
+        if(matches(flag, "yes")||matches(flag, "true")||matches(flag, "1")){
+            return 1;
+        }
+        if(matches(flag, "no")||matches(flag, "false")||matches(flag, "0")){
+            return 0;
+        }
+        return -1;
+    }
+
+    /**
+     * Method to compare text with a word, ignoring case.
+     * @param text CharSequence to compare.
+     * @param word String lower case word.
+     * @return boolean true if the text is the word.
+     */
+    private static boolean matches(CharSequence text, String word){
+        if(text.length()!=word.length()){
+            return false;
+        }
+        for(int i=0;i<word.length();i++){
+            if(Character.toLowerCase(text.charAt(i))!=word.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rows of the file read together, with the characters of every row in one array.
+     * Once priced, each row holds a box and a quantity, why it was rejected,
+     * or neither if it is blank, a comment or the header.
+     */
+    static class Chunk implements CharSequence {
+
+        private final long firstLine;
+        private char separator;
+        private char[] text = new char[1<<16];
+        private int length;
+        private int lines;
+        private final int[] lineEnd = new int[CHUNK_ROWS];
+
+        /**
+         * Results: the box and quantity of each row, or why it was rejected.
+         */
+        private Box[] boxes;
+        private int[] quantities;
+        private String[] rejected;
+        private final double[] size = new double[3];
+
+        /**
+         * Field currently parsed, seen as a CharSequence by LiveQuote.parseDimension().
+         */
+        private int fieldFrom, fieldTo;
+
+        /**
+         * Constructor for Chunk.
+         * @param firstLine long line number of the first row.
+         */
+        Chunk(long firstLine){
+            this.firstLine = firstLine;
+        }
+
+        /**
+         * Method to copy a line into the chunk.
+         * @param chars char[] holding the line.
+         * @param from int start of the line.
+         * @param to int end of the line, without the line break.
+         */
+        void addLine(char[] chars, int from, int to){
+            if(to>from && chars[to-1]=='\r'){
+                to--;
+            }
+            if(length+to-from>text.length){
+                text = Arrays.copyOf(text, Math.max(text.length*2, length+to-from));
+            }
+            System.arraycopy(chars, from, text, length, to-from);
+            length += to-from;
+            lineEnd[lines++] = length;
+        }
+
+        /**
+         * Method to get the line number of the first row in the file.
+         * @return long line number, starting at 1.
+         */
+        long getFirstLine(){
+            return firstLine;
+        }
+
+        /**
+         * Method to get the number of rows of the chunk.
+         * @return int number of rows.
+         */
+        int getLines(){
+            return lines;
+        }
+
+        /**
+         * Method to get the boxes of the priced rows.
+         * @return Box[] box of each row, null if the row was not priced.
+         */
+        Box[] getBoxes(){
+            return boxes;
+        }
+
+        /**
+         * Method to get the quantities of the priced rows.
+         * @return int[] number of boxes of each row.
+         */
+        int[] getQuantities(){
+            return quantities;
+        }
+
+        /**
+         * Method to get why a row was rejected.
+         * @param line int row of the chunk.
+         * @return String reason, null if the row was priced or holds no specification.
+         */
+        String getRejected(int line){
+            return rejected[line];
+        }
+
+        /**
+         * Method to validate and price every row of the chunk. Runs on a pool thread and only reads the order.
+         * @param orders OrderingSystem checking and making the boxes.
+         */
+        void price(OrderingSystem orders){
+            boxes = new Box[lines];
+            quantities = new int[lines];
+            rejected = new String[lines];
+            int[] fieldStart = new int[FIELDS];
+            int[] fieldEnd = new int[FIELDS];
+            for(int line=0;line<lines;line++){
+                int from = line==0 ? 0 : lineEnd[line-1];
+                int to = lineEnd[line];
+                if(isBlank(from, to) || text[from]=='#'){
+                    continue;
+                }
+                int fields=0;
+                int start=from;
+                for(int i=from;i<=to;i++){
+                    if(i==to || text[i]==separator){
+                        if(separator==' ' && i==start){
+                            start = i+1;
+                            continue;
+                        }
+                        if(fields<FIELDS){
+                            setField(start, i);
+                            fieldStart[fields] = fieldFrom;
+                            fieldEnd[fields] = fieldTo;
+                        }
+                        fields++;
+                        start = i+1;
+                    }
+                }
+                if(firstLine+line==1 && !startsWithNumber(fieldStart[0], fieldEnd[0])){
+                    continue;
+                }
+                if(fields!=FIELDS){
+                    rejected[line] = "expected "+FIELDS+" fields, found "+fields;
+                    continue;
+                }
+                rejected[line] = priceRow(orders, line, fieldStart, fieldEnd);
+            }
+        }
+
+        /**
+         * Method to validate and price one row.
+         * @param orders OrderingSystem checking and making the boxes.
+         * @param line int row of the chunk.
+         * @param fieldStart int[] start of each field.
+         * @param fieldEnd int[] end of each field.
+         * @return String why the row was rejected, null if it was priced.
+         */
+        private String priceRow(OrderingSystem orders, int line, int[] fieldStart, int[] fieldEnd){
+            for(int field=0;field<3;field++){
+                fieldFrom = fieldStart[field];
+                fieldTo = fieldEnd[field];
+                size[field] = LiveQuote.parseDimension(this);
+                if(Double.isNaN(size[field])){
+                    return "field "+(field+1)+" is not a number";
+                }
+            }
+            int grade = parseInt(fieldStart[3], fieldEnd[3]);
+            int colours = parseInt(fieldStart[4], fieldEnd[4]);
+            int quantity = parseInt(fieldStart[8], fieldEnd[8]);
+            int bottom = parseFlag(fieldStart[5], fieldEnd[5]);
+            int corners = parseFlag(fieldStart[6], fieldEnd[6]);
+            int sealable = parseFlag(fieldStart[7], fieldEnd[7]);
+            if(grade<0||colours<0||quantity<0){
+                return "grade, colours and quantity must be whole numbers";
+            }
+            if(bottom<0||corners<0||sealable<0){
+                return "flags must be yes/no, true/false or 1/0";
+            }
+            if(quantity<1){
+                return "quantity must be at least 1";
+            }
+            if(!orders.isSizeValid(size[0], size[1], size[2])){
+                return "size must be between 0.3 and 10 m";
+            }
+            if(!orders.isBoxCanBeMade(grade, colours, bottom==1, corners==1)){
+                return "box can't be made";
+            }
+            boxes[line] = orders.retBoxType(size[0], size[1], size[2], grade, colours, bottom==1, corners==1, sealable==1);
+            quantities[line] = quantity;
+            return boxes[line]==null ? "box can't be made" : null;
+        }
+
+        /**
+         * Method to select a field without its surrounding spaces and quotes.
+         * @param from int start of the field.
+         * @param to int end of the field.
+         */
+        private void setField(int from, int to){
+            while(from<to && (text[from]==' '||text[from]=='"')){
+                from++;
+            }
+            while(to>from && (text[to-1]==' '||text[to-1]=='"')){
+                to--;
+            }
+            fieldFrom = from;
+            fieldTo = to;
+        }
+
+        /**
+         * Method to check if a line holds only spaces.
+         * @param from int start of the line.
+         * @param to int end of the line.
+         * @return boolean true if the line is blank.
+         */
+        private boolean isBlank(int from, int to){
+            for(int i=from;i<to;i++){
+                if(text[i]!=' '&&text[i]!='\t'){
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Method to check if a field starts like a number, to recognise a header row.
+         * @param from int start of the field.
+         * @param to int end of the field.
+         * @return boolean true if the field starts with a digit or a decimal point.
+         */
+        private boolean startsWithNumber(int from, int to){
+            return from<to && ((text[from]>='0'&&text[from]<='9')||text[from]=='.'||text[from]==',');
+        }
+
+        /**
+         * Method to read a whole number that is not negative.
+         * @param from int start of the field.
+         * @param to int end of the field.
+         * @return int value, -1 if the field is not a whole number.
+         */
+        private int parseInt(int from, int to){
+            if(from==to||to-from>9){
+                return -1;
+            }
+            int value=0;
+            for(int i=from;i<to;i++){
+                if(text[i]<'0'||text[i]>'9'){
+                    return -1;
+                }
+                value = value*10+(text[i]-'0');
+            }
+            return value;
+        }
+
+        /**
+         * Method to read a flag.
+         * @param from int start of the field.
+         * @param to int end of the field.
+         * @return int 1 for yes, true or 1, 0 for no, false or 0, -1 otherwise.
+         */
+        private int parseFlag(int from, int to){
+            fieldFrom = from;
+            fieldTo = to;
+            return QuoteReader.parseFlag(this);
+        }
+
+        @Override
+        public int length(){
+            return fieldTo-fieldFrom;
+        }
+
+        @Override
+        public char charAt(int index){
+            return text[fieldFrom+index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end){
+            return new String(text, fieldFrom+start, end-start);
+        }
+
+        @Override
+        public String toString(){
+            return new String(text, fieldFrom, fieldTo-fieldFrom);
+        }
+    }
+}
@@ -1,12 +1,48 @@
 package flexbox;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
 public class FlexBox {
 
     /**
+     * Starts the FlexBox window, or prices a file of quote lines without a display:
+     * java -jar FlexBox.jar --batch [input|-] [output]
+     * Input defaults to stdin and output to stdout. The number of pricing threads
+     * is set with -Dflexbox.batchThreads, every core by default.
      * @param args the command line arguments
      */
     public static void main(String[] args) {
+        if(args.length>0 && args[0].equals("--batch")){
+            System.exit(runBatch(args));
+        }
         guiFrame screen = new guiFrame();
         screen.setVisible(true);
     }
-}
\ No newline at end of file
+
+    /**
+     * Method to run the batch pricing mode.
+     * @param args the command line arguments, starting with --batch.
+     * @return int exit status, 0 if every line was priced, 1 if some were rejected, 2 on errors.
+     */
+    private static int runBatch(String[] args){
+        int threads = Integer.getInteger("flexbox.batchThreads", Runtime.getRuntime().availableProcessors());
+        try(BufferedReader in = new BufferedReader(args.length>1 && !args[1].equals("-") ?
+                    new InputStreamReader(new FileInputStream(args[1]), StandardCharsets.UTF_8) :
+                    new InputStreamReader(System.in, StandardCharsets.UTF_8), 1<<16);
+                Writer out = new BufferedWriter(args.length>2 ?
+                    new OutputStreamWriter(new FileOutputStream(args[2]), StandardCharsets.UTF_8) :
+                    new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1<<16)){
+            long rejected = new BatchPricer(threads).run(in, out);
+            if(rejected>0){
+                System.err.println(rejected+" quote line(s) could not be priced");
+                return 1;
+            }
+            return 0;
+        }
+        catch(IOException ex){
+            System.err.println("Batch pricing failed: "+ex.getMessage());
+            return 2;
+        }
+    }
+}
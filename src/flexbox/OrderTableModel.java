@@ -0,0 +1,101 @@
+package flexbox;
+
+import javax.swing.table.AbstractTableModel;
+
+public class OrderTableModel extends AbstractTableModel implements OrderListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] COLUMN_NAMES = {
+        "Box ID", "Type", "Length", "Height", "Width", "Grade", "Colours", "R.Bottom", "R.Corner", "S.Top", "Cost(£)"
+    };
+
+    /**
+     * Ordering system whose confirmed boxes are displayed.
+     */
+    private final OrderingSystem orderingSystem;
+
+    /**
+     * Last box looked up and the order line holding it. JTable asks for every column
+     * of a row in turn, so the line is searched once per row.
+     */
+    private int cachedBox=-1;
+    private int cachedLine;
+
+    /**
+     * Constructor for OrderTableModel.
+     * The model reads one row per confirmed box straight from the order store when
+     * the table paints it, so only visible cells are looked up and formatted.
+     * Changes are received from the ordering system as row ranges, so the table keeps
+     * its selection and scroll position.
+     * @param orderingSystem OrderingSystem holding the orders.
+     */
+    public OrderTableModel(OrderingSystem orderingSystem){
+        this.orderingSystem = orderingSystem;
+        orderingSystem.addOrderListener(this);
+    }
+
+    @Override
+    public int getRowCount(){
+        return orderingSystem.numOfTotalItems();
+    }
+
+    @Override
+    public int getColumnCount(){
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column){
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column){
+        return column==0 ? Integer.class : Object.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column){
+        if(row!=cachedBox){
+            cachedLine = orderingSystem.getOrderStore().findConfirmedBox(row+1);
+            cachedBox = row;
+        }
+        OrderStore store = orderingSystem.getOrderStore();
+        BoxSpec spec = store.getSpec(cachedLine);
+        switch(column){
+            case 0: return row+1;
+            case 1: return spec.getType();
+            case 2: return String.format("%.3f", store.getLength(cachedLine));
+            case 3: return String.format("%.3f", store.getHeight(cachedLine));
+            case 4: return String.format("%.3f", store.getWidth(cachedLine));
+            case 5: return spec.getCardboardGrade();
+            case 6: return spec.getNumberOfColours();
+            case 7: return spec.isReinforcementBottom() ? "yes" : "no";
+            case 8: return spec.isReinforcementCorners() ? "yes" : "no";
+            case 9: return spec.isSealableTop() ? "yes" : "no";
+            default: return Money.format(store.getUnitPriceInPence(cachedLine));
+        }
+    }
+
+    /**
+     * Method to pass row changes of the ordering system on to the table.
+     * Deleting a box may move the lines behind it, so the cached lookup is dropped.
+     * @param event OrderEvent describing the change.
+     */
+    @Override
+    public void orderChanged(OrderEvent event){
+        switch(event.getType()){
+            case ROWS_INSERTED:
+                cachedBox=-1;
+                fireTableRowsInserted(event.getFirstRow(), event.getLastRow());
+                break;
+            case ROWS_DELETED:
+                cachedBox=-1;
+                fireTableRowsDeleted(event.getFirstRow(), event.getLastRow());
+                break;
+            default:
+                break;
+        }
+    }
+}
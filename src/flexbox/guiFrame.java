@@ -1,8 +1,43 @@
 package flexbox;
 
 
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.ImageIcon;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.JOptionPane;
+import javax.swing.JTextField;
+import javax.swing.ProgressMonitor;
+import javax.swing.ProgressMonitorInputStream;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
 
 public class guiFrame extends javax.swing.JFrame {
 
@@ -10,9 +45,219 @@ public class guiFrame extends javax.swing.JFrame {
     public OrderingSystem orderingSystem;
     
     public guiFrame() {
-        initComponents();
+        long started = System.nanoTime();
         orderingSystem = new OrderingSystem();
-        
+        totalOrderModel = new OrderTableModel(orderingSystem);
+        completeOrderModel = new OrderTableModel(orderingSystem);
+        initComponents();
+        long componentsBuilt = System.nanoTime();
+        orderingSystem.addOrderListener(event -> {
+            if(event.getType()==OrderEvent.Type.TOTALS_CHANGED){
+                QuantityOfBoxTotalOrder.setText(String.valueOf(orderingSystem.numOfTotalItems()));
+                TotalCost.setText(Money.format(orderingSystem.getOrderPriceInPence()));
+            }
+        });
+        installLiveQuote();
+        openOrderFiles();
+        loadImages();
+        logStartup(started, componentsBuilt, System.nanoTime());
+    }
+    
+    /**
+     * Method to open the archive of completed orders and the journal of the last session.
+     * The files are set with -Dflexbox.archive and -Dflexbox.journal, in ~/.flexbox by default;
+     * an empty value turns them off.
+     */
+    private void openOrderFiles(){
+        String archivePath = orderFile("flexbox.archive", "orders.archive");
+        if(!archivePath.isEmpty()){
+            try{
+                OrderArchive archive = new OrderArchive(new File(archivePath));
+                orderingSystem.setArchive(archive);
+                addWindowListener(new WindowAdapter(){
+                    @Override
+                    public void windowClosing(WindowEvent evt){
+                        try{
+                            archive.close();
+                        }
+                        catch(IOException ex){
+                            Logger.getLogger(guiFrame.class.getName()).log(Level.SEVERE, "Could not close the order archive", ex);
+                        }
+                    }
+                });
+            }
+            catch(IOException ex){
+                Logger.getLogger(guiFrame.class.getName()).log(Level.SEVERE, "Could not open the order archive "+archivePath, ex);
+            }
+        }
+        openJournal(orderFile("flexbox.journal", "orders.journal"));
+    }
+    
+    /**
+     * Method to get the path of an order file.
+     * @param property String system property naming the file.
+     * @param name String name of the file in ~/.flexbox when the property is not set.
+     * @return String path of the file, empty if it is turned off.
+     */
+    private static String orderFile(String property, String name){
+        return System.getProperty(property,
+                System.getProperty("user.home")+File.separator+".flexbox"+File.separator+name);
+    }
+    
+    /**
+     * Method to restore the order from the journal of the last session and record further changes.
+     * The latest snapshot is loaded first and only the journal records written after it are replayed.
+     * Completed orders of the journal that did not reach the archive are archived by the replay.
+     * @param path String path of the journal, empty to turn it off.
+     */
+    private void openJournal(String path){
+        if(path.isEmpty()){
+            return;
+        }
+        File snapshotFile = new File(path+".snapshot");
+        try{
+            OrderSnapshot snapshot=null;
+            try{
+                snapshot = OrderSnapshot.read(snapshotFile);
+            }
+            catch(IOException ex){
+                Logger.getLogger(guiFrame.class.getName()).log(Level.WARNING, "Could not read "+snapshotFile, ex);
+            }
+            OrderJournal journal = OrderJournal.open(new File(path), orderingSystem, snapshot);
+            orderingSystem.setJournal(journal);
+            snapshotOffset = snapshot==null ? -1 : snapshot.getJournalOffset();
+            Future<?> snapshots = SNAPSHOT_WRITER.scheduleWithFixedDelay(() -> takeSnapshot(snapshotFile),
+                    SNAPSHOT_INTERVAL, SNAPSHOT_INTERVAL, TimeUnit.MILLISECONDS);
+            PreviewBoxSize.setText(orderingSystem.disPreOrdBoxSize());
+            PreviewFeatures.setText(orderingSystem.disPreOrdFeatureInformation());
+            PreviewPriceBreakdown.setText(orderingSystem.disPreOrdPriceBreakdown());
+            clearOutPutCostsAndQuantity();
+            addWindowListener(new WindowAdapter(){
+                @Override
+                public void windowClosing(WindowEvent evt){
+                    snapshots.cancel(false);
+                    try{
+                        SNAPSHOT_WRITER.submit(() -> {
+                            OrderJournal current = orderingSystem.getJournal();
+                            if(current==null){
+                                return null;
+                            }
+                            OrderSnapshot last = OrderSnapshot.capture(orderingSystem);
+                            current.close();
+                            if(last.getJournalOffset()!=snapshotOffset){
+                                last.write(snapshotFile);
+                            }
+                            return null;
+                        }).get();
+                    }
+                    catch(ExecutionException ex){
+                        Logger.getLogger(guiFrame.class.getName()).log(Level.SEVERE, "Could not close the order journal", ex.getCause());
+                    }
+                    catch(InterruptedException ex){
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+        catch(IOException ex){
+            Logger.getLogger(guiFrame.class.getName()).log(Level.SEVERE, "Could not open the order journal "+path, ex);
+        }
+    }
+    
+    /**
+     * Method to tell the user that a change to the order could not be recorded.
+     * A journal that stopped writing is turned off, so the order can still be used without it.
+     * @param ex IOException thrown by the ordering system.
+     */
+    private void journalFailed(IOException ex){
+        Logger.getLogger(guiFrame.class.getName()).log(Level.SEVERE, "Could not record a change to the order", ex);
+        stopFailedJournal();
+        JOptionPane.showMessageDialog(this, "The change could not be saved: "+ex.getMessage()+
+                "\nFurther changes are not recorded and the order will be lost when FlexBox closes.",
+                "Error", JOptionPane.ERROR_MESSAGE);
+    }
+    
+    /**
+     * Method to stop recording changes in a journal that can no longer write them.
+     */
+    private void stopFailedJournal(){
+        OrderJournal journal = orderingSystem.getJournal();
+        if(journal!=null && journal.hasFailed()){
+            orderingSystem.setJournal(null);
+            try{
+                journal.close();
+            }
+            catch(IOException ex){
+                Logger.getLogger(guiFrame.class.getName()).log(Level.FINE, "Closed a failed order journal", ex);
+            }
+        }
+    }
+    
+    /**
+     * Method to save a snapshot of the order book if it changed since the last one,
+     * and start a new journal from it so the journal only holds the changes made since.
+     * Runs on the snapshot thread: the order book is copied under the lock of the ordering system
+     * and written once the journal records it covers are on disk, so the window is not held up.
+     * @param file File of the snapshot.
+     * @see OrderSnapshot#checkpoint(OrderingSystem, OrderJournal, File)
+     */
+    private void takeSnapshot(File file){
+        OrderJournal journal = orderingSystem.getJournal();
+        if(journal==null || journal.getAppendedOffset()==snapshotOffset){
+            return;
+        }
+        try{
+            OrderSnapshot snapshot = OrderSnapshot.checkpoint(orderingSystem, journal, file);
+            if(snapshot!=null){
+                snapshotOffset = snapshot.getJournalOffset();
+            }
+        }
+        catch(IOException ex){
+            Logger.getLogger(guiFrame.class.getName()).log(Level.SEVERE, "Could not write "+file, ex);
+        }
+    }
+    
+    /**
+     * Method to load the images of the main window off the Event Dispatch Thread.
+     * The labels are shown without their image until it has been read.
+     */
+    private void loadImages(){
+        new SwingWorker<ImageIcon, Void>(){
+            @Override
+            protected ImageIcon doInBackground(){
+                return new ImageIcon(guiFrame.class.getResource("/flexbox/images/boxmini2.png"));
+            }
+            @Override
+            protected void done(){
+                try{
+                    jLabel15.setIcon(get());
+                    jLabel15.revalidate();
+                }
+                catch(InterruptedException | ExecutionException ex){
+                    Logger.getLogger(guiFrame.class.getName()).log(Level.WARNING, "Could not load images", ex);
+                }
+            }
+        }.execute();
+    }
+    
+    /**
+     * Method to log how long each phase of start up took once the window is first shown.
+     * @param started long System.nanoTime() when the constructor started.
+     * @param componentsBuilt long System.nanoTime() after the components were built.
+     * @param constructed long System.nanoTime() at the end of the constructor.
+     */
+    private void logStartup(long started, long componentsBuilt, long constructed){
+        addWindowListener(new WindowAdapter(){
+            @Override
+            public void windowOpened(WindowEvent evt){
+                long shown = System.nanoTime();
+                Logger.getLogger(guiFrame.class.getName()).log(Level.INFO,
+                        "Start up: components {0} ms, set up {1} ms, first frame {2} ms, {3} ms after JVM start",
+                        new Object[]{(componentsBuilt-started)/1000000, (constructed-componentsBuilt)/1000000,
+                            (shown-started)/1000000, ManagementFactory.getRuntimeMXBean().getUptime()});
+                removeWindowListener(this);
+            }
+        });
     }
 
     /**
@@ -42,6 +287,7 @@ public class guiFrame extends javax.swing.JFrame {
         CompleteOrderListItems = new javax.swing.JTable();
         CompleteOrderCancelButton = new javax.swing.JButton();
         CompleteOrdeFinishOrder = new javax.swing.JButton();
+        CompleteOrderExport = new javax.swing.JButton();
         CompleteOrderTotalCost = new javax.swing.JLabel();
         jLabel32 = new javax.swing.JLabel();
         jLabel27 = new javax.swing.JLabel();
@@ -79,6 +325,9 @@ public class guiFrame extends javax.swing.JFrame {
         jLabel45 = new javax.swing.JLabel();
         jLabel46 = new javax.swing.JLabel();
         WarningInvalidSpecOrdDeletionOkButton = new javax.swing.JButton();
+        jMenuBar1 = new javax.swing.JMenuBar();
+        jMenu1 = new javax.swing.JMenu();
+        ImportOrders = new javax.swing.JMenuItem();
         jLabel1 = new javax.swing.JLabel();
         jPanel2 = new javax.swing.JPanel();
         ClearFields = new javax.swing.JButton();
@@ -139,6 +388,9 @@ public class guiFrame extends javax.swing.JFrame {
         QuantityOfBox = new javax.swing.JLabel();
         jLabel21 = new javax.swing.JLabel();
         QuantityOfBoxTotalOrder = new javax.swing.JLabel();
+        LiveQuotePanel = new javax.swing.JPanel();
+        jLabel47 = new javax.swing.JLabel();
+        LiveQuotePrice = new javax.swing.JLabel();
 
         WarningPreviewOrder.setTitle("Error");
         WarningPreviewOrder.setAlwaysOnTop(true);
@@ -294,29 +546,7 @@ public class guiFrame extends javax.swing.JFrame {
         jLabel26.setFont(new java.awt.Font("Tahoma", 0, 18)); // NOI18N
         jLabel26.setText("Complete order");
 
-        CompleteOrderListItems.setModel(new javax.swing.table.DefaultTableModel(
-            new Object [][] {
-
-            },
-            new String [] {
-                "Box ID", "Type", "Length", "Height", "Width", "Grade", "Colours", "R.Bottom", "R.Corner", "S.Top", "Cost(£)"
-            }
-        ) {
-            Class[] types = new Class [] {
-                java.lang.Integer.class, java.lang.Object.class, java.lang.Object.class, java.lang.Object.class, java.lang.Object.class, java.lang.Object.class, java.lang.Object.class, java.lang.Object.class, java.lang.Object.class, java.lang.Object.class, java.lang.Object.class
-            };
-            boolean[] canEdit = new boolean [] {
-                false, false, false, false, false, false, false, false, false, false, false
-            };
-
-            public Class getColumnClass(int columnIndex) {
-                return types [columnIndex];
-            }
-
-            public boolean isCellEditable(int rowIndex, int columnIndex) {
-                return canEdit [columnIndex];
-            }
-        });
+        CompleteOrderListItems.setModel(completeOrderModel);
         CompleteOrderListItems.getTableHeader().setReorderingAllowed(false);
         jScrollPane5.setViewportView(CompleteOrderListItems);
 
@@ -334,6 +564,13 @@ public class guiFrame extends javax.swing.JFrame {
             }
         });
 
+        CompleteOrderExport.setText("Export...");
+        CompleteOrderExport.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                CompleteOrderExportActionPerformed(evt);
+            }
+        });
+
         CompleteOrderTotalCost.setText("0.00");
 
         jLabel32.setText("Total(£): ");
@@ -361,10 +598,12 @@ public class guiFrame extends javax.swing.JFrame {
                 .addContainerGap())
             .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, jPanel10Layout.createSequentialGroup()
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                .addComponent(CompleteOrderExport)
+                .addGap(18, 18, 18)
                 .addComponent(CompleteOrderCancelButton)
                 .addGap(18, 18, 18)
                 .addComponent(CompleteOrdeFinishOrder)
-                .addGap(170, 170, 170))
+                .addGap(116, 116, 116))
         );
         jPanel10Layout.setVerticalGroup(
             jPanel10Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
@@ -380,6 +619,7 @@ public class guiFrame extends javax.swing.JFrame {
                     .addComponent(jLabel27))
                 .addGap(18, 18, 18)
                 .addGroup(jPanel10Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(CompleteOrderExport)
                     .addComponent(CompleteOrderCancelButton)
                     .addComponent(CompleteOrdeFinishOrder))
                 .addContainerGap(54, Short.MAX_VALUE))
@@ -919,7 +1159,6 @@ public class guiFrame extends javax.swing.JFrame {
 
         jLabel11.setText("m");
 
-        jLabel15.setIcon(new javax.swing.ImageIcon(getClass().getResource("/flexbox/images/boxmini2.png"))); // NOI18N
 
         jLabel22.setText("Width:");
 
@@ -1127,29 +1366,7 @@ public class guiFrame extends javax.swing.JFrame {
         PreviewFeatures.setRows(5);
         jScrollPane1.setViewportView(PreviewFeatures);
 
-        TotalOrderListItems.setModel(new javax.swing.table.DefaultTableModel(
-            new Object [][] {
-
-            },
-            new String [] {
-                "Box ID", "Type", "Length", "Height", "Width", "Grade", "Colours", "R.Bottom", "R.Corner", "S.Top", "Cost(£)"
-            }
-        ) {
-            Class[] types = new Class [] {
-                java.lang.Integer.class, java.lang.Object.class, java.lang.Object.class, java.lang.Object.class, java.lang.Object.class, java.lang.Object.class, java.lang.Object.class, java.lang.Object.class, java.lang.Object.class, java.lang.Object.class, java.lang.Object.class
-            };
-            boolean[] canEdit = new boolean [] {
-                false, false, false, false, false, false, false, false, false, false, false
-            };
-
-            public Class getColumnClass(int columnIndex) {
-                return types [columnIndex];
-            }
-
-            public boolean isCellEditable(int rowIndex, int columnIndex) {
-                return canEdit [columnIndex];
-            }
-        });
+        TotalOrderListItems.setModel(totalOrderModel);
         TotalOrderListItems.getTableHeader().setReorderingAllowed(false);
         jScrollPane3.setViewportView(TotalOrderListItems);
 
@@ -1327,6 +1544,28 @@ public class guiFrame extends javax.swing.JFrame {
                 .addContainerGap(25, Short.MAX_VALUE))
         );
 
+        LiveQuotePanel.setLayout(new java.awt.FlowLayout(java.awt.FlowLayout.LEFT));
+
+        jLabel47.setText("Live quote:");
+        LiveQuotePanel.add(jLabel47);
+
+        LiveQuotePrice.setText(" ");
+        LiveQuotePanel.add(LiveQuotePrice);
+
+        jMenu1.setText("File");
+
+        ImportOrders.setText("Import orders (CSV)...");
+        ImportOrders.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                ImportOrdersActionPerformed(evt);
+            }
+        });
+        jMenu1.add(ImportOrders);
+
+        jMenuBar1.add(jMenu1);
+
+        setJMenuBar(jMenuBar1);
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(getContentPane());
         getContentPane().setLayout(layout);
         layout.setHorizontalGroup(
@@ -1340,7 +1579,8 @@ public class guiFrame extends javax.swing.JFrame {
                     .addGroup(layout.createSequentialGroup()
                         .addComponent(jPanel2, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
-                        .addComponent(jPanel3, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)))
+                        .addComponent(jPanel3, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
+                    .addComponent(LiveQuotePanel, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
                 .addContainerGap())
         );
         layout.setVerticalGroup(
@@ -1351,6 +1591,8 @@ public class guiFrame extends javax.swing.JFrame {
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                     .addComponent(jPanel3, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                     .addComponent(jPanel2, javax.swing.GroupLayout.PREFERRED_SIZE, 583, Short.MAX_VALUE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(LiveQuotePanel, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                 .addContainerGap())
         );
 
@@ -1442,10 +1684,12 @@ public class guiFrame extends javax.swing.JFrame {
      */
     private void DeleteAllOrdersActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_DeleteAllOrdersActionPerformed
         WarningDeleteAllOrders.setVisible(false);
-        orderingSystem.clearAllOrder();
-        deleteOrdersFromTable();
-        QuantityOfBoxTotalOrder.setText(String.valueOf(orderingSystem.numOfTotalItems()));
-        TotalCost.setText(String.format("%.2f", orderingSystem.getOrderPrice()));
+        try{
+            orderingSystem.clearAllOrder();
+        }
+        catch(IOException ex){
+            journalFailed(ex);
+        }
     }//GEN-LAST:event_DeleteAllOrdersActionPerformed
 
     /**
@@ -1479,9 +1723,7 @@ public class guiFrame extends javax.swing.JFrame {
      */
     private void CompleteOrdeFinishOrderActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_CompleteOrdeFinishOrderActionPerformed
         CompleteOrderWindow.setVisible(false);
-        OrderPlacedSuccess.setLocationRelativeTo(null);
-        clearFlexBoxWindow();
-        OrderPlacedSuccess.setVisible(true);
+        completeOrder();
     }//GEN-LAST:event_CompleteOrdeFinishOrderActionPerformed
 
     /**
@@ -1531,21 +1773,30 @@ public class guiFrame extends javax.swing.JFrame {
     private void WarningInvalidSpecOrdDeletionOkButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_WarningInvalidSpecOrdDeletionOkButtonActionPerformed
         WarningInvalidSpecOrdDeletion.setVisible(false);
     }//GEN-LAST:event_WarningInvalidSpecOrdDeletionOkButtonActionPerformed
+
+    /**
+     * Event listener to export the completed order.
+     * @param evt 
+     */
+    private void CompleteOrderExportActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_CompleteOrderExportActionPerformed
+        exportOrder();
+    }//GEN-LAST:event_CompleteOrderExportActionPerformed
+
+    /**
+     * Event listener to import orders from a CSV file.
+     * @param evt 
+     */
+    private void ImportOrdersActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_ImportOrdersActionPerformed
+        importOrders();
+    }//GEN-LAST:event_ImportOrdersActionPerformed
     
     /**
      * Method to check if the numbers are correctly added without any non-numeric character.
      * @return true if non-numeric no detected.
      */
     private boolean isNumber(){
-        try{
-            double test=Double.parseDouble(Length.getText().replaceAll(",","."));
-            double test2=Double.parseDouble(Height.getText().replaceAll(",","."));
-            double test3=Double.parseDouble(Width.getText().replaceAll(",","."));
-            return true;
-        }
-        catch(NumberFormatException ex){
-            return false;
-        }
+        return !Double.isNaN(readDimension(Length)) && !Double.isNaN(readDimension(Height)) &&
+                !Double.isNaN(readDimension(Width));
     }
     
     /**
@@ -1555,7 +1806,7 @@ public class guiFrame extends javax.swing.JFrame {
     private boolean isNumberValidSpecDeletion(){
         try{
             int test=Integer.parseInt(DelSpecOrder.getText());
-            return orderingSystem.numOfTotalItems() >= test;
+            return test>=1 && orderingSystem.numOfTotalItems() >= test;
         }
         catch(NumberFormatException ex){
             return false;
@@ -1569,12 +1820,13 @@ public class guiFrame extends javax.swing.JFrame {
     private void deleteSpecOrder(){
         try{
             if(isNumberValidSpecDeletion()){
-                orderingSystem.deleteOrder(Integer.parseInt(DelSpecOrder.getText()));
-                deleteOrdersFromTable();
+                try{
+                    orderingSystem.deleteOrder(Integer.parseInt(DelSpecOrder.getText()));
+                }
+                catch(IOException ex){
+                    journalFailed(ex);
+                }
                 DelSpecOrder.setText("");
-                addOrderToTheTable();
-                QuantityOfBoxTotalOrder.setText(String.valueOf(orderingSystem.numOfTotalItems()));
-                TotalCost.setText(String.format("%.2f", orderingSystem.getOrderPrice()));
             }
             else{
                 WarningInvalidSpecOrdDeletion.setLocationRelativeTo(null);
@@ -1591,19 +1843,268 @@ public class guiFrame extends javax.swing.JFrame {
      * Method to update and check the input sizes
      */
     private void updateBoxSizes(){
-        boxHeight=0;
-        boxLength=0;
-        boxWidth=0;
-        try {
-            boxHeight = Double.parseDouble(Height.getText().replaceAll(",","."));
-            boxLength = Double.parseDouble(Length.getText().replaceAll(",","."));
-            boxWidth = Double.parseDouble(Width.getText().replaceAll(",","."));
-        }
-        catch(NumberFormatException ex) {
+        boxHeight = readDimension(Height);
+        boxLength = readDimension(Length);
+        boxWidth = readDimension(Width);
+        if(Double.isNaN(boxHeight)||Double.isNaN(boxLength)||Double.isNaN(boxWidth)){
+            boxHeight=0;
+            boxLength=0;
+            boxWidth=0;
             WarningInvalidSize.setLocationRelativeTo(null);
             WarningInvalidSize.setVisible(true);
         }
-        
+    }
+    
+    /**
+     * Method to read a dimension from a text field without copying its text.
+     * @param field JTextField holding the dimension.
+     * @return double value of the field, NaN if it is not a number.
+     */
+    private double readDimension(JTextField field){
+        Document document = field.getDocument();
+        try{
+            document.getText(0, document.getLength(), dimensionText);
+        }
+        catch(BadLocationException ex){
+            return Double.NaN;
+        }
+        return LiveQuote.parseDimension(dimensionText);
+    }
+    
+    /**
+     * Method to export the completed order as an invoice or a manifest of every box, in CSV or JSON.
+     * The file type is picked in the file chooser. Rows are streamed from the order store to the file
+     * off the EDT; the buttons of the modal complete order window stay disabled meanwhile,
+     * so the order can't change during the export.
+     */
+    private void exportOrder(){
+        JFileChooser chooser = new JFileChooser();
+        FileNameExtensionFilter[] filters = {
+            new FileNameExtensionFilter("Invoice (CSV)", "csv"),
+            new FileNameExtensionFilter("Invoice (JSON)", "json"),
+            new FileNameExtensionFilter("Manifest (CSV)", "csv"),
+            new FileNameExtensionFilter("Manifest (JSON)", "json")
+        };
+        chooser.setAcceptAllFileFilterUsed(false);
+        for(FileNameExtensionFilter filter : filters){
+            chooser.addChoosableFileFilter(filter);
+        }
+        chooser.setFileFilter(filters[0]);
+        if(chooser.showSaveDialog(CompleteOrderWindow)!=JFileChooser.APPROVE_OPTION){
+            return;
+        }
+        int choice = Arrays.asList(filters).indexOf(chooser.getFileFilter());
+        boolean manifest = choice>=2;
+        InvoiceExporter.Format format = choice%2==0 ? InvoiceExporter.Format.CSV : InvoiceExporter.Format.JSON;
+        String extension = "."+filters[choice].getExtensions()[0];
+        File selected = chooser.getSelectedFile();
+        File file = selected.getName().toLowerCase().endsWith(extension) ? selected
+                : new File(selected.getPath()+extension);
+        setCompleteOrderButtonsEnabled(false);
+        new SwingWorker<Long, Void>(){
+            @Override
+            protected Long doInBackground() throws IOException{
+                InvoiceExporter exporter = new InvoiceExporter(orderingSystem.getOrderStore());
+                try(FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+                    return manifest ? exporter.writeManifest(out, format) : exporter.writeInvoice(out, format);
+                }
+            }
+            @Override
+            protected void done(){
+                setCompleteOrderButtonsEnabled(true);
+                try{
+                    JOptionPane.showMessageDialog(CompleteOrderWindow, get()+" box(es) exported to "+file.getName(),
+                            "Export", JOptionPane.INFORMATION_MESSAGE);
+                }
+                catch(InterruptedException | ExecutionException ex){
+                    Logger.getLogger(guiFrame.class.getName()).log(Level.SEVERE, "Could not export the order to "+file, ex);
+                    JOptionPane.showMessageDialog(CompleteOrderWindow, "The order could not be exported: "+
+                            (ex.getCause()!=null ? ex.getCause() : ex).getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+    
+    /**
+     * Method to complete the order.
+     * The confirmed lines are archived off the EDT while a progress monitor follows the lines
+     * written and offers to cancel, which keeps the order. Once the order is in the archive its
+     * completion is recorded and the lines are removed on the EDT in one update. The window is
+     * disabled until then, so the order can't change while it is archived.
+     */
+    private void completeOrder(){
+        ProgressMonitor monitor = new ProgressMonitor(this, "Completing the order", null, 0,
+                orderingSystem.getOrderStore().confirmedSize());
+        long completed = System.currentTimeMillis();
+        setEnabled(false);
+        new SwingWorker<Long, Void>(){
+            @Override
+            protected Long doInBackground() throws IOException{
+                return orderingSystem.archiveOrder(completed, (lines, total) -> {
+                    monitor.setProgress(lines);
+                    return !monitor.isCanceled();
+                });
+            }
+            @Override
+            protected void done(){
+                monitor.close();
+                guiFrame.this.setEnabled(true);
+                try{
+                    orderingSystem.completeOrder(get(), completed);
+                }
+                catch(InterruptedException | ExecutionException ex){
+                    Throwable cause = ex.getCause()!=null ? ex.getCause() : ex;
+                    String message;
+                    if(cause instanceof InterruptedIOException){
+                        message = "Completing the order was cancelled, the order has been kept.";
+                    }
+                    else{
+                        Logger.getLogger(guiFrame.class.getName()).log(Level.SEVERE, "Could not archive the order", ex);
+                        message = "The order could not be saved and has been kept: "+cause.getMessage();
+                    }
+                    JOptionPane.showMessageDialog(guiFrame.this, message, "Error", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                catch(IOException ex){
+                    if(orderingSystem.isConfirmedOrder()){
+                        Logger.getLogger(guiFrame.class.getName()).log(Level.SEVERE, "Could not record the order", ex);
+                        stopFailedJournal();
+                        JOptionPane.showMessageDialog(guiFrame.this, "The order could not be saved and has been kept: "+
+                                ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    journalFailed(ex);
+                }
+                clearFlexBoxWindow();
+                OrderPlacedSuccess.setLocationRelativeTo(null);
+                OrderPlacedSuccess.setVisible(true);
+            }
+        }.execute();
+    }
+    
+    /**
+     * Method to enable or disable the buttons of the complete order window.
+     * @param enabled boolean true to enable the buttons.
+     */
+    private void setCompleteOrderButtonsEnabled(boolean enabled){
+        CompleteOrderExport.setEnabled(enabled);
+        CompleteOrderCancelButton.setEnabled(enabled);
+        CompleteOrdeFinishOrder.setEnabled(enabled);
+    }
+    
+    /**
+     * Method to import box specifications from a CSV file into the total order.
+     * The file is read, validated and priced off the EDT while a progress monitor offers to cancel;
+     * rows are confirmed on the EDT as each chunk is ready. The window is disabled until the import
+     * ends, so no box can be added to the preview meanwhile.
+     */
+    private void importOrders(){
+        if(!orderingSystem.previewListIsEmpty()){
+            WarningPreviewOrder.setLocationRelativeTo(null);
+            WarningPreviewOrder.setVisible(true);
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV files", "csv", "txt"));
+        if(chooser.showOpenDialog(this)!=JFileChooser.APPROVE_OPTION){
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        StringBuilder rejected = new StringBuilder();
+        long[] rejectedRows = new long[1];
+        setEnabled(false);
+        new SwingWorker<Long, Void>(){
+            @Override
+            protected Long doInBackground() throws IOException{
+                ProgressMonitorInputStream progress = new ProgressMonitorInputStream(guiFrame.this,
+                        "Importing "+file.getName(), new FileInputStream(file));
+                try(Reader in = new InputStreamReader(progress, StandardCharsets.UTF_8)){
+                    return new OrderImporter(orderingSystem, Runtime.getRuntime().availableProcessors(),
+                            SwingUtilities::invokeLater).run(in, (lineNumber, reason) -> {
+                                if(++rejectedRows[0]<=MAX_REPORTED_ROWS){
+                                    rejected.append("\nLine ").append(lineNumber).append(": ").append(reason);
+                                }
+                            });
+                }
+            }
+            @Override
+            protected void done(){
+                guiFrame.this.setEnabled(true);
+                String message;
+                try{
+                    message = get()+" row(s) imported";
+                }
+                catch(InterruptedException | ExecutionException ex){
+                    Logger.getLogger(guiFrame.class.getName()).log(Level.WARNING, "Import of "+file+" stopped", ex);
+                    stopFailedJournal();
+                    message = "Import stopped: "+(ex.getCause()!=null ? ex.getCause() : ex).getMessage();
+                }
+                if(rejectedRows[0]>0){
+                    message += ", "+rejectedRows[0]+" row(s) rejected"+rejected;
+                    if(rejectedRows[0]>MAX_REPORTED_ROWS){
+                        message += "\n...";
+                    }
+                }
+                JOptionPane.showMessageDialog(guiFrame.this, message, "Import orders", JOptionPane.INFORMATION_MESSAGE);
+            }
+        }.execute();
+    }
+    
+    /**
+     * Method to keep the live quote below the order sections up to date.
+     * The quote is recalculated QUOTE_DELAY milliseconds after the last change to the
+     * box fields, so a burst of key strokes only prices the box once.
+     */
+    private void installLiveQuote(){
+        liveQuote = new LiveQuote(orderingSystem);
+        quoteTimer = new Timer(QUOTE_DELAY, evt -> updateLiveQuote());
+        quoteTimer.setRepeats(false);
+        DocumentListener typing = new DocumentListener(){
+            @Override
+            public void insertUpdate(DocumentEvent evt){
+                quoteTimer.restart();
+            }
+            @Override
+            public void removeUpdate(DocumentEvent evt){
+                quoteTimer.restart();
+            }
+            @Override
+            public void changedUpdate(DocumentEvent evt){
+                quoteTimer.restart();
+            }
+        };
+        Length.getDocument().addDocumentListener(typing);
+        Height.getDocument().addDocumentListener(typing);
+        Width.getDocument().addDocumentListener(typing);
+        ActionListener toggled = evt -> quoteTimer.restart();
+        CardGrade.addActionListener(toggled);
+        Colour.addActionListener(toggled);
+        ReinforcedBottom.addActionListener(toggled);
+        ReinforcedCorners.addActionListener(toggled);
+        SealableTop.addActionListener(toggled);
+        Quantity.addChangeListener(evt -> quoteTimer.restart());
+        updateLiveQuote();
+    }
+    
+    /**
+     * Method to show the unit and line price of the box currently typed in.
+     */
+    private void updateLiveQuote(){
+        long unitPrice = liveQuote.unitPriceInPence(readDimension(Length), readDimension(Height), readDimension(Width),
+                CardGrade.getSelectedIndex()+1, Colour.getSelectedIndex(), ReinforcedBottom.isSelected(),
+                ReinforcedCorners.isSelected(), SealableTop.isSelected());
+        if(unitPrice<0){
+            LiveQuotePrice.setText("-");
+            return;
+        }
+        quoteText.setLength(0);
+        quoteText.append("£");
+        Money.appendTo(quoteText, unitPrice);
+        quoteText.append(" per box, £");
+        Money.appendTo(quoteText, unitPrice*(int)Quantity.getValue());
+        quoteText.append(" for ").append((int)Quantity.getValue());
+        LiveQuotePrice.setText(quoteText.toString());
     }
     
     /**
@@ -1615,10 +2116,8 @@ public class guiFrame extends javax.swing.JFrame {
             WarningNoTotalOrders.setVisible(true);
         }
         else if(orderingSystem.isConfirmedOrder()){
-            deleteOrdersFromTable(true);
-            addOrderToTheTable(true);
             CompleteOrderWindow.setLocationRelativeTo(null);
-            CompleteOrderTotalCost.setText(String.format("%.2f", orderingSystem.getOrderPrice()));
+            CompleteOrderTotalCost.setText(Money.format(orderingSystem.getOrderPriceInPence()));
             CompleteOrderWindow.setVisible(true);
         }
     }
@@ -1632,15 +2131,18 @@ public class guiFrame extends javax.swing.JFrame {
             WarningFullTotalOrder.setVisible(true);
         }
         else{
-            orderingSystem.confirmOrderBox();
-            deleteOrdersFromTable();
-            addOrderToTheTable();
-            QuantityOfBoxTotalOrder.setText(String.valueOf(orderingSystem.numOfTotalItems()));
-            TotalCost.setText(String.format("%.2f", orderingSystem.getOrderPrice()));
-            PreviewBoxSize.setText("");
-            PreviewFeatures.setText("");
-            PreviewPriceBreakdown.setText("");
-            clearOutPutCostsAndQuantity();
+            try{
+                orderingSystem.confirmOrderBox();
+            }
+            catch(IOException ex){
+                journalFailed(ex);
+            }
+            if(orderingSystem.previewListIsEmpty()){
+                PreviewBoxSize.setText("");
+                PreviewFeatures.setText("");
+                PreviewPriceBreakdown.setText("");
+                clearOutPutCostsAndQuantity();
+            }
         }
     }
     
@@ -1664,8 +2166,7 @@ public class guiFrame extends javax.swing.JFrame {
                 boxProduction(boxLength, boxHeight, boxWidth,grade,colour,reinforcedBottom,reinforcedCorners,sealableTop,numOfBoxes);
             }
             else{
-                WarningCantProduce.setLocationRelativeTo(null);
-                WarningCantProduce.setVisible(true);
+                showCantProduceWarning(grade,colour,reinforcedBottom,reinforcedCorners,sealableTop);
             }
         }
         else if(isNumber()){
@@ -1674,6 +2175,31 @@ public class guiFrame extends javax.swing.JFrame {
         }
     }
     
+    /**
+     * Method to display the warning cannot produce box window with the cheapest box
+     * that offers at least the requested features, when there is one.
+     * @param grade Integer containing the grade of cardboard.
+     * @param colour Integer number of colours requested.
+     * @param reinforcedBottom Boolean if user specifies reinforcement bottom.
+     * @param reinforcedCorners Boolean if user specifies reinforcement corners.
+     * @param sealableTop Boolean if user specifies sealable top.
+     */
+    private void showCantProduceWarning(int grade,int colour,boolean reinforcedBottom,
+            boolean reinforcedCorners,boolean sealableTop){
+        javax.swing.JDialog warning = WarningCantProduce;
+        BoxSpec upgrade = orderingSystem.suggestUpgrade(grade,colour,reinforcedBottom,reinforcedCorners,sealableTop);
+        if(upgrade==null){
+            jLabel34.setText("Please change your combination of additional features");
+        }
+        else{
+            jLabel34.setText("Try: grade "+upgrade.getCardboardGrade()+", "+upgrade.getNumberOfColours()
+                    +" colour(s), bottom "+(upgrade.isReinforcementBottom() ? "yes" : "no")
+                    +", corners "+(upgrade.isReinforcementCorners() ? "yes" : "no"));
+        }
+        warning.setLocationRelativeTo(null);
+        warning.setVisible(true);
+    }
+    
     /**
      * Method create the box and add to the order list.
      * Displays warning window if box can't be made.
@@ -1689,14 +2215,23 @@ public class guiFrame extends javax.swing.JFrame {
      */
     private void boxProduction(double boxLength,double boxHeight,double boxWidth,int grade,int colour,
             boolean reinforcedBottom,boolean reinforcedCorners,boolean sealableTop,int numOfBoxes){
-        if(orderingSystem.previewListIsEmpty()){
-            orderingSystem.addPreviewOrder(boxLength, boxHeight, boxWidth,grade,colour,
-                reinforcedBottom,reinforcedCorners,sealableTop,numOfBoxes);
+        if(!orderingSystem.canAdmit(1, numOfBoxes)){
+            WarningFullTotalOrder.setLocationRelativeTo(null);
+            WarningFullTotalOrder.setVisible(true);
+        }
+        else if(orderingSystem.previewListIsEmpty()){
+            try{
+                orderingSystem.addPreviewOrder(boxLength, boxHeight, boxWidth,grade,colour,
+                    reinforcedBottom,reinforcedCorners,sealableTop,numOfBoxes);
+            }
+            catch(IOException ex){
+                journalFailed(ex);
+                return;
+            }
             PreviewBoxSize.setText(orderingSystem.disPreOrdBoxSize());
             PreviewFeatures.setText(orderingSystem.disPreOrdFeatureInformation());
             PreviewPriceBreakdown.setText(orderingSystem.disPreOrdPriceBreakdown());
-            CurrentCost.setText(String.format("%.2f", orderingSystem.getPreviewOrderPrice()));
-            QuantityOfBox.setText(String.valueOf(orderingSystem.numberOfPreviewItems()));
+            clearOutPutCostsAndQuantity();
             clearInputTextFields();
         }
         else{
@@ -1705,58 +2240,6 @@ public class guiFrame extends javax.swing.JFrame {
         }
     }
     
-    /**
-     * Method to add confirmed orders to the table (Total Order section).
-     */
-    private void addOrderToTheTable(){
-        DefaultTableModel model = (DefaultTableModel)TotalOrderListItems.getModel();
-        int boxID=1;
-        for(Box box:orderingSystem.orderList){
-            if(box.confirmedOrderBox){
-                model.addRow(new Object[]{boxID,box.getType(),String.format("%.3f",box.getLength()),
-                    String.format("%.3f",box.getHeight()),String.format("%.3f",box.getWidth()),
-                    box.getCardboardGrade(),box.getNumberOfColours(),box.rBottom(),box.rCorners(),
-                    box.sTop(),String.format("%.2f", box.boxCost())});
-            }
-            boxID++;
-        }
-    }
-    
-    /**
-     * Overloaded method to add confirmed orders in the "Complete order" pop up window.
-     * @param secondTable if true, adds to the second table before validating the order and sending invoice.
-     */
-    private void addOrderToTheTable(boolean secondTable){
-        DefaultTableModel model = (DefaultTableModel)CompleteOrderListItems.getModel();
-        int boxID=1;
-        for(Box box:orderingSystem.orderList){
-            if(box.isConfirmedOrderBox()){
-                model.addRow(new Object[]{boxID,box.getType(),String.format("%.3f",box.getLength()),
-                    String.format("%.3f",box.getHeight()),String.format("%.3f",box.getWidth()),
-                    box.getCardboardGrade(),box.getNumberOfColours(),box.rBottom(),box.rCorners(),
-                    box.sTop(),String.format("%.2f", box.boxCost())});
-            }
-            boxID++;
-        }
-    }
-    
-    /**
-     * Deletes the orders from TotalOrderListItems table.
-     */
-    private void deleteOrdersFromTable(){
-        DefaultTableModel model = (DefaultTableModel)TotalOrderListItems.getModel();
-        model.setRowCount(0);
-    }
-    
-    /**
-     * Overloaded method to delete confirmed boxes from the second table.
-     * @param secondTable when true applies to CompleteOrderListItems table
-     */
-    private void deleteOrdersFromTable(boolean secondTable){
-        DefaultTableModel model = (DefaultTableModel)CompleteOrderListItems.getModel();
-        model.setRowCount(0);
-    }
-    
     /**
      * Sets default options input textfield and options.
      */
@@ -1776,7 +2259,12 @@ public class guiFrame extends javax.swing.JFrame {
      * Sets default text preview section of GUI (cleans the previous input).
      */
     private void clearOutPutPreviewOrderTextFields(){
-        orderingSystem.clearPreviewOrder();
+        try{
+            orderingSystem.clearPreviewOrder();
+        }
+        catch(IOException ex){
+            journalFailed(ex);
+        }
         PreviewBoxSize.setText("");
         PreviewFeatures.setText("");
         PreviewPriceBreakdown.setText("");
@@ -1786,7 +2274,7 @@ public class guiFrame extends javax.swing.JFrame {
      * Updates the prices according to the order list of unconfirmed orders (preview section).
      */
     private void clearOutPutCostsAndQuantity(){
-        CurrentCost.setText(String.valueOf(orderingSystem.getPreviewOrderPrice()));
+        CurrentCost.setText(Money.format(orderingSystem.getPreviewOrderPriceInPence()));
         QuantityOfBox.setText(String.valueOf(orderingSystem.numberOfPreviewItems()));
     }
     
@@ -1794,14 +2282,16 @@ public class guiFrame extends javax.swing.JFrame {
      * Sets whole FlexBox window to default options and text fields.
      */
     private void clearFlexBoxWindow(){
-        deleteOrdersFromTable();
         clearOutPutPreviewOrderTextFields();
         clearInputTextFields();
         clearOutPutCostsAndQuantity();
-        QuantityOfBoxTotalOrder.setText(String.valueOf(orderingSystem.numOfTotalItems()));
-        TotalCost.setText(String.format("%.2f", orderingSystem.getOrderPrice()));
-        orderingSystem.clearAllOrder();
-        orderingSystem.clearPreviewOrder();
+        try{
+            orderingSystem.clearAllOrder();
+            orderingSystem.clearPreviewOrder();
+        }
+        catch(IOException ex){
+            journalFailed(ex);
+        }
     }
             
     /**
@@ -1850,6 +2340,7 @@ public class guiFrame extends javax.swing.JFrame {
     private javax.swing.JComboBox<String> Colour;
     private javax.swing.JButton CompleteOrdeFinishOrder;
     private javax.swing.JButton CompleteOrderCancelButton;
+    private javax.swing.JButton CompleteOrderExport;
     private javax.swing.JTable CompleteOrderListItems;
     private javax.swing.JLabel CompleteOrderTotalCost;
     private javax.swing.JDialog CompleteOrderWindow;
@@ -1859,7 +2350,10 @@ public class guiFrame extends javax.swing.JFrame {
     private javax.swing.JButton DeleteAllOrders;
     private javax.swing.JButton FinalOrder;
     private javax.swing.JTextField Height;
+    private javax.swing.JMenuItem ImportOrders;
     private javax.swing.JTextField Length;
+    private javax.swing.JPanel LiveQuotePanel;
+    private javax.swing.JLabel LiveQuotePrice;
     private javax.swing.JDialog OrderPlacedSuccess;
     private javax.swing.JButton OrderPlacedSuccessOKButton;
     private javax.swing.JTextArea PreviewBoxSize;
@@ -1927,11 +2421,14 @@ public class guiFrame extends javax.swing.JFrame {
     private javax.swing.JLabel jLabel44;
     private javax.swing.JLabel jLabel45;
     private javax.swing.JLabel jLabel46;
+    private javax.swing.JLabel jLabel47;
     private javax.swing.JLabel jLabel5;
     private javax.swing.JLabel jLabel6;
     private javax.swing.JLabel jLabel7;
     private javax.swing.JLabel jLabel8;
     private javax.swing.JLabel jLabel9;
+    private javax.swing.JMenu jMenu1;
+    private javax.swing.JMenuBar jMenuBar1;
     private javax.swing.JPanel jPanel1;
     private javax.swing.JPanel jPanel10;
     private javax.swing.JPanel jPanel11;
@@ -1959,6 +2456,21 @@ public class guiFrame extends javax.swing.JFrame {
     private double boxHeight;
     private double boxLength;
     private double boxWidth;
+    private OrderTableModel totalOrderModel;
+    private OrderTableModel completeOrderModel;
+    private static final int QUOTE_DELAY=150;
+    private static final int MAX_REPORTED_ROWS=20;
+    private static final int SNAPSHOT_INTERVAL=Integer.getInteger("flexbox.snapshotInterval", 60)*1000;
+    private static final ScheduledExecutorService SNAPSHOT_WRITER = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "order-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long snapshotOffset;
+    private LiveQuote liveQuote;
+    private Timer quoteTimer;
+    private final Segment dimensionText = new Segment();
+    private final StringBuilder quoteText = new StringBuilder(64);
 
 
 
@@ -0,0 +1,119 @@
+package flexbox;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BoxCatalogueTest {
+
+    /**
+     * Test of upgradeOf method, of class BoxCatalogue.
+     * Every request is checked against a search over all the boxes of the bundled catalogue.
+     */
+    @Test
+    public void testUpgradeOfMatchesSearch() throws Exception{
+        BoxCatalogue catalogue = BoxCatalogue.loadDefault();
+        for(int grade=0;grade<8;grade++){
+            for(int colours=0;colours<4;colours++){
+                for(int features=0;features<8;features++){
+                    boolean bottom = (features&4)!=0;
+                    boolean corners = (features&2)!=0;
+                    boolean sealable = (features&1)!=0;
+                    BoxSpec expected = search(catalogue, grade, colours, bottom, corners, sealable);
+                    BoxSpec upgrade = catalogue.upgradeOf(grade, colours, bottom, corners, sealable);
+                    if(expected==null){
+                        assertNull(upgrade);
+                        continue;
+                    }
+                    assertNotNull(upgrade);
+                    assertEquals(expected.getPriceFactor(), upgrade.getPriceFactor(), 0);
+                    assertTrue(upgrade.getCardboardGrade()>=grade);
+                    assertTrue(upgrade.getNumberOfColours()>=colours);
+                    assertTrue(upgrade.isReinforcementBottom() || !bottom);
+                    assertTrue(upgrade.isReinforcementCorners() || !corners);
+                    assertEquals(sealable, upgrade.isSealableTop());
+                    assertSame(upgrade, catalogue.specOf(upgrade.getCardboardGrade(), upgrade.getNumberOfColours(),
+                            upgrade.isReinforcementBottom(), upgrade.isReinforcementCorners(), sealable));
+                    if(catalogue.typeOf(grade, colours, bottom, corners)!=0){
+                        assertSame(catalogue.specOf(grade, colours, bottom, corners, sealable), upgrade);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of upgradeOf method, of class BoxCatalogue, on requests of the bundled price list.
+     */
+    @Test
+    public void testKnownUpgrades() throws Exception{
+        BoxCatalogue catalogue = BoxCatalogue.loadDefault();
+        BoxSpec upgrade = catalogue.upgradeOf(1, 1, false, false, false);
+        assertEquals(2, upgrade.getCardboardGrade());
+        assertEquals(1, upgrade.getNumberOfColours());
+        assertEquals(2, upgrade.getType());
+        upgrade = catalogue.upgradeOf(1, 0, false, true, true);
+        assertEquals(3, upgrade.getCardboardGrade());
+        assertEquals(2, upgrade.getNumberOfColours());
+        assertEquals(5, upgrade.getType());
+        assertTrue(upgrade.isSealableTop());
+        assertNull(catalogue.upgradeOf(6, 0, false, false, false));
+    }
+
+    /**
+     * Test of load method, of class BoxCatalogue, on rules cut short while being written.
+     * Rules missing their end line or with fewer rules than it counts must be refused.
+     */
+    @Test
+    public void testIncompleteRulesRefused() throws Exception{
+        String rules = "1 0 no no 1\n2 1 no no 2\n";
+        assertEquals(2, BoxCatalogue.load(stream(rules+"end 2\n")).typeOf(2, 1, false, false));
+        for(String cut : new String[]{rules, "1 0 no no 1\nend 2\n", rules+"end 2\n3 1 no no 2\n"}){
+            try{
+                BoxCatalogue.load(stream(cut));
+                fail("incomplete rules were loaded: "+cut);
+            }
+            catch(IOException ex){
+                assertNotNull(ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Method to turn catalogue rules into a stream.
+     * @param rules String rules.
+     * @return InputStream of the rules in UTF-8.
+     */
+    private static InputStream stream(String rules){
+        return new ByteArrayInputStream(rules.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Method to search the cheapest box of a catalogue covering a request, lowest grade first on ties.
+     * @param catalogue BoxCatalogue searched.
+     * @param grade int requested grade.
+     * @param colours int requested number of colours.
+     * @param bottom boolean requested reinforcement bottom.
+     * @param corners boolean requested reinforcement corners.
+     * @param sealable boolean requested sealable top.
+     * @return BoxSpec cheapest covering box or null.
+     */
+    private static BoxSpec search(BoxCatalogue catalogue, int grade, int colours,
+            boolean bottom, boolean corners, boolean sealable){
+        BoxSpec best = null;
+        for(int g=grade;g<8;g++){
+            for(int c=colours;c<4;c++){
+                for(int b=bottom ? 1 : 0;b<2;b++){
+                    for(int r=corners ? 1 : 0;r<2;r++){
+                        BoxSpec spec = catalogue.specOf(g, c, b==1, r==1, sealable);
+                        if(spec!=null && (best==null || spec.getPriceFactor()<best.getPriceFactor())){
+                            best = spec;
+                        }
+                    }
+                }
+            }
+        }
+        return best;
+    }
+}
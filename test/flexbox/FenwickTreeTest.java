@@ -0,0 +1,75 @@
+package flexbox;
+
+import java.util.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class FenwickTreeTest {
+
+    /**
+     * Method to check the tree against a plain list of the same values.
+     * @param tree FenwickTree under test.
+     * @param values List of the expected values.
+     */
+    private static void assertMatches(FenwickTree tree, List<Long> values){
+        assertEquals(values.size(), tree.size());
+        long sum=0;
+        assertEquals(0, tree.prefixSum(0));
+        for(int position=0;position<values.size();position++){
+            long value = values.get(position);
+            for(long total=sum+1;total<=sum+value;total++){
+                assertEquals(position, tree.find(total));
+            }
+            sum += value;
+            assertEquals(sum, tree.prefixSum(position+1));
+        }
+        assertEquals(values.size(), tree.find(sum+1));
+    }
+
+    /**
+     * Test of append, add, prefixSum and find methods, of class FenwickTree.
+     * The tree grows past its initial capacity and values drop to zero, as confirmed lines do
+     * when their boxes are deleted one by one.
+     */
+    @Test
+    public void testAgainstList(){
+        Random random = new Random(7);
+        FenwickTree tree = new FenwickTree();
+        List<Long> values = new ArrayList<>();
+        for(int i=0;i<100;i++){
+            long value = random.nextInt(4);
+            tree.append(value);
+            values.add(value);
+            if(i%10==9){
+                assertMatches(tree, values);
+            }
+        }
+        for(int i=0;i<300;i++){
+            int position = random.nextInt(values.size());
+            long delta = values.get(position)>0 && random.nextBoolean() ? -1 : random.nextInt(3);
+            tree.add(position, delta);
+            values.set(position, values.get(position)+delta);
+        }
+        assertMatches(tree, values);
+    }
+
+    /**
+     * Test of find method, of class FenwickTree, on an empty tree and after clear.
+     */
+    @Test
+    public void testEmpty(){
+        FenwickTree tree = new FenwickTree();
+        assertEquals(0, tree.find(1));
+        tree.append(5);
+        tree.append(2);
+        assertEquals(1, tree.find(6));
+        tree.clear();
+        assertEquals(0, tree.size());
+        assertEquals(0, tree.prefixSum(0));
+        assertEquals(0, tree.find(1));
+        tree.append(3);
+        assertEquals(3, tree.prefixSum(1));
+        assertEquals(0, tree.find(3));
+        assertEquals(1, tree.find(4));
+    }
+}
@@ -0,0 +1,121 @@
+package flexbox;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.util.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class InvoiceExporterTest {
+
+    private Locale locale;
+
+    @Before
+    public void setUp(){
+        locale = Locale.getDefault();
+        Locale.setDefault(Locale.ROOT);
+    }
+
+    @After
+    public void tearDown(){
+        Locale.setDefault(locale);
+    }
+
+    /**
+     * Method to make an order whose dimensions include values lying on a rounding tie
+     * once scaled to three decimals, like 1.0005, and enough boxes to fill the export buffer.
+     * @return OrderingSystem holding the confirmed order.
+     * @throws IOException never, the order has no journal.
+     */
+    private static OrderingSystem order() throws IOException{
+        OrderingSystem orders = new OrderingSystem();
+        Random random = new Random(11);
+        for(int line=0;line<2000;line++){
+            double length = line<1000 ? 0.3+line/1000.0+0.0005 : 0.3+random.nextDouble()*9.7;
+            double height = line%7==0 ? 2.675 : 0.3+random.nextDouble()*9.7;
+            double width = line%5==0 ? 9.9995 : 0.3+random.nextInt(9700)/1000.0;
+            orders.addPreviewOrder(length, height, width, 2+line%3, line%3, line%2==0, false, line%4==0, 1+line%4);
+        }
+        orders.confirmOrderBox();
+        orders.deleteOrder(3);
+        return orders;
+    }
+
+    /**
+     * Method to export a document into lines of text.
+     * @param orders OrderingSystem holding the confirmed order.
+     * @param manifest boolean true for the manifest, false for the invoice.
+     * @return String[] lines of the CSV export.
+     * @throws IOException if the export fails.
+     */
+    private static String[] export(OrderingSystem orders, boolean manifest) throws IOException{
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        InvoiceExporter exporter = new InvoiceExporter(orders.getOrderStore());
+        if(manifest){
+            exporter.writeManifest(Channels.newChannel(bytes), InvoiceExporter.Format.CSV);
+        }
+        else{
+            exporter.writeInvoice(Channels.newChannel(bytes), InvoiceExporter.Format.CSV);
+        }
+        return bytes.toString("UTF-8").split("\n");
+    }
+
+    /**
+     * Test of writeManifest method, of class InvoiceExporter.
+     * Every box row must show the same cells as the complete order table,
+     * whose dimensions are formatted with String.format("%.3f").
+     */
+    @Test
+    public void testManifestMatchesTable() throws Exception{
+        OrderingSystem orders = order();
+        OrderTableModel table = new OrderTableModel(orders);
+        String[] rows = export(orders, true);
+        assertEquals(1+table.getRowCount(), rows.length);
+        int line=0;
+        long lastBoxLine=-1;
+        for(int row=0;row<table.getRowCount();row++){
+            String[] fields = rows[row+1].split(",", -1);
+            assertEquals(12, fields.length);
+            int boxLine = orders.getOrderStore().findConfirmedBox(row+1);
+            if(boxLine!=lastBoxLine){
+                line++;
+                lastBoxLine = boxLine;
+            }
+            assertEquals(String.valueOf(line), fields[1]);
+            for(int column=0;column<table.getColumnCount();column++){
+                String field = fields[column==0 ? 0 : column+1];
+                assertEquals("row "+row+" column "+column, String.valueOf(table.getValueAt(row, column)), field);
+            }
+        }
+    }
+
+    /**
+     * Test of writeInvoice method, of class InvoiceExporter.
+     * The lines must add up to the box count and order price shown by the ordering system.
+     */
+    @Test
+    public void testInvoiceTotals() throws Exception{
+        OrderingSystem orders = order();
+        String[] rows = export(orders, false);
+        OrderStore store = orders.getOrderStore();
+        long boxes=0;
+        for(int row=1;row<rows.length-1;row++){
+            String[] fields = rows[row].split(",", -1);
+            assertEquals(15, fields.length);
+            int quantity = Integer.parseInt(fields[12]);
+            assertEquals(boxes+1, Long.parseLong(fields[1]));
+            assertEquals(boxes+quantity, Long.parseLong(fields[2]));
+            assertEquals(String.format("%.3f", store.getLength(row-1)), fields[4]);
+            assertEquals(Money.format(store.getUnitPriceInPence(row-1)), fields[13]);
+            assertEquals(Money.format(store.getUnitPriceInPence(row-1)*quantity), fields[14]);
+            boxes += quantity;
+        }
+        String[] total = rows[rows.length-1].split(",", -1);
+        assertEquals("total", total[0]);
+        assertEquals(orders.numOfTotalItems(), Long.parseLong(total[12]));
+        assertEquals(Money.format(orders.getOrderPriceInPence()), total[14]);
+        assertEquals(boxes, orders.numOfTotalItems());
+    }
+}
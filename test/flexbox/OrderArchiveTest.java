@@ -0,0 +1,212 @@
+package flexbox;
+
+import java.io.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class OrderArchiveTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test of the archive after it is closed and opened again.
+     * Records of orders spanning more than one mapped region must read back unchanged,
+     * and ids must carry on from the last archived order.
+     */
+    @Test
+    public void testReopen() throws Exception{
+        File file = new File(folder.getRoot(), "orders.archive");
+        OrderingSystem orders = new OrderingSystem();
+        long firstLines = (1<<16)+10;
+        try(OrderArchive archive = new OrderArchive(file)){
+            orders.setArchive(archive);
+            for(int line=0;line<firstLines;line++){
+                orders.addPreviewOrder(1+line%1000/1000.0, 0.5, 0.5, 2, 1, false, false, false, 1+line%3);
+            }
+            orders.confirmOrderBox();
+            assertEquals(1, orders.finalizeOrder());
+            orders.addPreviewOrder(2.0, 1.0, 0.5, 3, 2, true, true, true, 4);
+            orders.confirmOrderBox();
+            orders.deleteOrder(1);
+            assertEquals(2, orders.finalizeOrder());
+            assertEquals(firstLines+1, archive.size());
+        }
+        try(OrderArchive archive = new OrderArchive(file)){
+            assertEquals(firstLines+1, archive.size());
+            assertEquals(3, archive.nextOrderId());
+            assertEquals(0, archive.findOrder(1));
+            assertEquals(firstLines, archive.findOrder(2));
+            assertEquals(archive.size(), archive.findOrder(3));
+            long sales=0;
+            for(long index=0;index<firstLines;index++){
+                assertEquals(1+index%1000/1000.0, archive.getLength(index), 0);
+                assertEquals(1+index%3, archive.getQuantity(index));
+                assertEquals(1, archive.getOrderId(index));
+                sales += archive.getUnitPriceInPence(index)*archive.getQuantity(index);
+            }
+            long last = firstLines;
+            Box box = new Box(2.0, 1.0, 0.5, 3, 2, true, true, true);
+            assertEquals(2.0, archive.getLength(last), 0);
+            assertEquals(1.0, archive.getHeight(last), 0);
+            assertEquals(0.5, archive.getWidth(last), 0);
+            assertEquals(3, archive.getQuantity(last));
+            assertEquals(box.boxCostInPence(), archive.getUnitPriceInPence(last));
+            assertEquals(5, archive.getType(last));
+            BoxSpec spec = archive.getSpec(last);
+            assertEquals(3, spec.getCardboardGrade());
+            assertEquals(2, spec.getNumberOfColours());
+            assertTrue(spec.isReinforcementBottom() && spec.isReinforcementCorners() && spec.isSealableTop());
+            sales += box.boxCostInPence()*3;
+            assertEquals(sales, archive.salesInPence(0, Long.MAX_VALUE));
+        }
+    }
+
+    /**
+     * Test of finalizeOrder replayed from the journal after the order was already archived:
+     * the order must not be archived a second time.
+     */
+    @Test
+    public void testReplayedOrderArchivedOnce() throws Exception{
+        File journalFile = new File(folder.getRoot(), "orders.journal");
+        File archiveFile = new File(folder.getRoot(), "orders.archive");
+        OrderingSystem orders = new OrderingSystem();
+        try(OrderArchive archive = new OrderArchive(archiveFile);
+                OrderJournal journal = OrderJournal.open(journalFile, orders)){
+            orders.setArchive(archive);
+            orders.setJournal(journal);
+            orders.addPreviewOrder(1.0, 1.0, 1.0, 2, 1, false, false, false, 2);
+            orders.confirmOrderBox();
+            assertEquals(1, orders.finalizeOrder());
+        }
+        orders = new OrderingSystem();
+        try(OrderArchive archive = new OrderArchive(archiveFile)){
+            orders.setArchive(archive);
+            try(OrderJournal journal = OrderJournal.open(journalFile, orders)){
+                assertEquals(journalFile.length(), journal.getAppendedOffset());
+                assertEquals(1, archive.size());
+                assertEquals(2, archive.nextOrderId());
+                assertTrue(orders.isTotalOrderEmpty());
+            }
+        }
+    }
+
+    /**
+     * Test of finalizeOrder replayed from the journal after the order missed the archive:
+     * the order must be archived with the time it was completed, not the time of the replay.
+     */
+    @Test
+    public void testReplayKeepsCompletionTime() throws Exception{
+        File journalFile = new File(folder.getRoot(), "orders.journal");
+        OrderingSystem orders = new OrderingSystem();
+        long completed;
+        try(OrderArchive archive = new OrderArchive(new File(folder.getRoot(), "first.archive"));
+                OrderJournal journal = OrderJournal.open(journalFile, orders)){
+            orders.setArchive(archive);
+            orders.setJournal(journal);
+            orders.addPreviewOrder(1.0, 1.0, 1.0, 2, 1, false, false, false, 2);
+            orders.confirmOrderBox();
+            assertEquals(1, orders.finalizeOrder());
+            completed = archive.getTimestamp(0);
+        }
+        Thread.sleep(20);
+        orders = new OrderingSystem();
+        try(OrderArchive archive = new OrderArchive(new File(folder.getRoot(), "second.archive"))){
+            orders.setArchive(archive);
+            OrderJournal.open(journalFile, orders).close();
+            assertEquals(1, archive.size());
+            assertEquals(1, archive.getOrderId(0));
+            assertEquals(completed, archive.getTimestamp(0));
+        }
+    }
+
+    /**
+     * Test of finalizeOrder when the order can't be archived: the confirmed lines must be kept
+     * and the journal must not record the completion, so a restart still has the order.
+     */
+    @Test
+    public void testFailedArchiveKeepsOrder() throws Exception{
+        File journalFile = new File(folder.getRoot(), "orders.journal");
+        File archiveFile = new File(folder.getRoot(), "orders.archive");
+        OrderingSystem orders = new OrderingSystem();
+        try(OrderArchive archive = new OrderArchive(archiveFile){
+                    @Override
+                    public synchronized long append(OrderStore store, long orderId, long timestamp,
+                            Progress progress) throws IOException{
+                        throw new IOException("disk full");
+                    }
+                };
+                OrderJournal journal = OrderJournal.open(journalFile, orders)){
+            orders.setArchive(archive);
+            orders.setJournal(journal);
+            orders.addPreviewOrder(1.0, 1.0, 1.0, 2, 1, false, false, false, 2);
+            orders.confirmOrderBox();
+            long end = journal.getAppendedOffset();
+            try{
+                orders.finalizeOrder();
+                fail("the order was completed without being archived");
+            }
+            catch(IOException ex){
+                assertEquals("disk full", ex.getMessage());
+            }
+            assertEquals(2, orders.numOfTotalItems());
+            assertEquals(end, journal.getAppendedOffset());
+        }
+        orders = new OrderingSystem();
+        try(OrderArchive archive = new OrderArchive(archiveFile)){
+            orders.setArchive(archive);
+            OrderJournal.open(journalFile, orders).close();
+            assertEquals(0, archive.size());
+            assertEquals(2, orders.numOfTotalItems());
+        }
+    }
+
+    /**
+     * Test of archiveOrder stopped by its progress: the archive must be left as it was
+     * and the order kept, so it can still be completed.
+     */
+    @Test
+    public void testStoppedArchiveKeepsOrder() throws Exception{
+        OrderingSystem orders = new OrderingSystem();
+        try(OrderArchive archive = new OrderArchive(new File(folder.getRoot(), "orders.archive"))){
+            orders.setArchive(archive);
+            for(int line=0;line<10000;line++){
+                orders.addPreviewOrder(1.0, 1.0, 1.0, 2, 1, false, false, false, 1);
+            }
+            orders.confirmOrderBox();
+            int[] reported = new int[2];
+            try{
+                orders.archiveOrder(System.currentTimeMillis(), (lines, total) -> {
+                    reported[0] = lines;
+                    reported[1] = total;
+                    return false;
+                });
+                fail("the archive was not stopped");
+            }
+            catch(InterruptedIOException ex){
+                assertEquals(4096, reported[0]);
+                assertEquals(10000, reported[1]);
+            }
+            assertEquals(0, archive.size());
+            assertEquals(1, archive.nextOrderId());
+            assertEquals(10000, orders.numOfTotalItems());
+            assertEquals(1, orders.finalizeOrder());
+            assertEquals(10000, archive.size());
+            assertTrue(orders.isTotalOrderEmpty());
+        }
+    }
+
+    /**
+     * Test of the constructor, of class OrderArchive, on a file that is not an archive.
+     */
+    @Test(expected=IOException.class)
+    public void testRejectsOtherFiles() throws Exception{
+        File file = folder.newFile("notes.txt");
+        try(FileOutputStream out = new FileOutputStream(file)){
+            out.write("not an archive".getBytes("UTF-8"));
+        }
+        new OrderArchive(file).close();
+    }
+}
@@ -0,0 +1,185 @@
+package flexbox;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class OrderJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Method to record a confirmed order of two lines with one box deleted.
+     * @param file File of the journal.
+     * @return long offset of the end of those records.
+     * @throws IOException if the journal can't be written.
+     */
+    private static long recordOrder(File file) throws IOException{
+        OrderingSystem orders = new OrderingSystem();
+        try(OrderJournal journal = OrderJournal.open(file, orders)){
+            orders.setJournal(journal);
+            orders.addPreviewOrder(1.0, 0.5, 0.5, 2, 1, false, false, false, 3);
+            orders.addPreviewOrder(2.0, 1.0, 0.5, 3, 2, true, true, true, 2);
+            orders.confirmOrderBox();
+            orders.deleteOrder(2);
+            long end = journal.getAppendedOffset();
+            orders.addPreviewOrder(1.5, 1.5, 1.5, 2, 0, false, false, false, 5);
+            journal.sync();
+            return end;
+        }
+    }
+
+    /**
+     * Method to check that an ordering system holds the order written by recordOrder()
+     * without the preview line added last.
+     * @param orders OrderingSystem replayed from the journal.
+     */
+    private static void assertRecordedOrder(OrderingSystem orders){
+        OrderStore store = orders.getOrderStore();
+        assertEquals(4, orders.numOfTotalItems());
+        assertEquals(0, orders.numberOfPreviewItems());
+        assertEquals(2, store.confirmedSize());
+        assertEquals(2, store.getQuantity(0));
+        assertEquals(1.0, store.getLength(0), 0);
+        assertEquals(2, store.getQuantity(1));
+        assertTrue(store.isSealableTop(1));
+        assertEquals(5, store.getSpec(1).getType());
+    }
+
+    /**
+     * Test of open method, of class OrderJournal, on a journal whose last record was cut short by a crash.
+     * The torn record is dropped, the file is truncated after the last whole record
+     * and new records appended after it are replayed on the next start.
+     */
+    @Test
+    public void testReplayDropsTornTail() throws Exception{
+        File file = new File(folder.getRoot(), "orders.journal");
+        long end = recordOrder(file);
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)){
+            channel.truncate(end+10);
+        }
+        OrderingSystem orders = new OrderingSystem();
+        try(OrderJournal journal = OrderJournal.open(file, orders)){
+            assertEquals(end, file.length());
+            assertEquals(end, journal.getAppendedOffset());
+            assertRecordedOrder(orders);
+            orders.setJournal(journal);
+            orders.addPreviewOrder(1.0, 1.0, 1.0, 1, 0, false, false, false, 1);
+            journal.sync();
+        }
+        orders = new OrderingSystem();
+        try(OrderJournal journal = OrderJournal.open(file, orders)){
+            assertEquals(file.length(), journal.getAppendedOffset());
+            assertEquals(4, orders.numOfTotalItems());
+            assertEquals(1, orders.numberOfPreviewItems());
+        }
+    }
+
+    /**
+     * Test of open method, of class OrderJournal, on a last record failing its checksum
+     * and on bytes left after the last record.
+     */
+    @Test
+    public void testReplayDropsCorruptTail() throws Exception{
+        File file = new File(folder.getRoot(), "orders.journal");
+        long end = recordOrder(file);
+        assertTrue(file.length()>end);
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)){
+            ByteBuffer body = ByteBuffer.allocate(1);
+            channel.read(body, end+6);
+            body.put(0, (byte)~body.get(0));
+            body.rewind();
+            channel.write(body, end+6);
+        }
+        OrderingSystem orders = new OrderingSystem();
+        try(OrderJournal journal = OrderJournal.open(file, orders)){
+            assertEquals(end, file.length());
+            assertEquals(end, journal.getAppendedOffset());
+            assertRecordedOrder(orders);
+        }
+        try(FileOutputStream out = new FileOutputStream(file, true)){
+            out.write(new byte[]{0, 0, 0, 9, 1, 2, 3});
+        }
+        orders = new OrderingSystem();
+        try(OrderJournal journal = OrderJournal.open(file, orders)){
+            assertEquals(end, file.length());
+            assertEquals(end, journal.getAppendedOffset());
+            assertRecordedOrder(orders);
+        }
+    }
+
+    /**
+     * Test of open method, of class OrderJournal, on a whole record of a type it does not know.
+     * The journal must be refused and left as it is, not truncated like a torn tail.
+     */
+    @Test
+    public void testUnknownRecordTypeKeepsJournal() throws Exception{
+        File file = new File(folder.getRoot(), "orders.journal");
+        recordOrder(file);
+        CRC32 crc = new CRC32();
+        crc.update(99);
+        ByteBuffer record = ByteBuffer.allocate(9);
+        record.putInt(1).put((byte)99).putInt((int)crc.getValue()).flip();
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.APPEND)){
+            channel.write(record);
+        }
+        long length = file.length();
+        try{
+            OrderJournal.open(file, new OrderingSystem()).close();
+            fail("a record of type 99 was accepted");
+        }
+        catch(IOException ex){
+            assertEquals("unsupported journal record type 99", ex.getMessage());
+        }
+        assertEquals(length, file.length());
+    }
+
+    /**
+     * Test of checkpoint method, of class OrderSnapshot.
+     * The journal must start again under a new id holding only its header, the old journal
+     * must be gone, and the snapshot with the records written after it must restore the order.
+     */
+    @Test
+    public void testCheckpointStartsNewJournal() throws Exception{
+        File file = new File(folder.getRoot(), "orders.journal");
+        File snapshotFile = new File(folder.getRoot(), "orders.journal.snapshot");
+        OrderingSystem orders = new OrderingSystem();
+        OrderJournal journal = OrderJournal.open(file, orders);
+        orders.setJournal(journal);
+        orders.addPreviewOrder(1.0, 0.5, 0.5, 2, 1, false, false, false, 3);
+        orders.addPreviewOrder(2.0, 1.0, 0.5, 3, 2, true, true, true, 2);
+        orders.confirmOrderBox();
+        OrderSnapshot snapshot = OrderSnapshot.checkpoint(orders, journal, snapshotFile);
+        OrderJournal rotated = orders.getJournal();
+        try{
+            assertNotSame(journal, rotated);
+            assertNotEquals(journal.getId(), rotated.getId());
+            assertEquals(rotated.getId(), snapshot.getJournalId());
+            assertEquals(OrderJournal.HEADER_SIZE, snapshot.getJournalOffset());
+            assertEquals(OrderJournal.HEADER_SIZE, file.length());
+            assertEquals(file, rotated.getFile());
+            assertFalse(new File(file.getPath()+".next").exists());
+            orders.deleteOrder(2);
+            orders.addPreviewOrder(1.5, 1.5, 1.5, 2, 0, false, false, false, 5);
+            rotated.sync();
+        }
+        finally{
+            rotated.close();
+        }
+        orders = new OrderingSystem();
+        try(OrderJournal reopened = OrderJournal.open(file, orders, OrderSnapshot.read(snapshotFile))){
+            assertEquals(rotated.getId(), reopened.getId());
+            assertEquals(4, orders.numOfTotalItems());
+            assertEquals(5, orders.numberOfPreviewItems());
+            assertEquals(2, orders.getOrderStore().getQuantity(1));
+            assertEquals(1.5, orders.getOrderStore().getLength(2), 0);
+        }
+    }
+}
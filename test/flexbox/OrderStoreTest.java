@@ -0,0 +1,153 @@
+package flexbox;
+
+import java.util.*;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class OrderStoreTest {
+
+    /**
+     * Method to make a box whose length tells which line it was added as.
+     * @param line int number of the line.
+     * @return Box of grade 1 with one colour.
+     */
+    private static Box box(int line){
+        return new Box(1+line/100000.0, 0.5, 0.5, 1, 1, false, false, false);
+    }
+
+    /**
+     * Test of add, confirmAll, findConfirmedBox and removeConfirmedBox methods, of class OrderStore.
+     * Lines span several segments, boxes are deleted until the store compacts,
+     * and the lines left must keep their order, contents and box numbers.
+     */
+    @Test
+    public void testDeleteAcrossSegments(){
+        OrderStore store = new OrderStore();
+        List<int[]> lines = new ArrayList<>();
+        Random random = new Random(3);
+        for(int line=0;line<3*OrderStore.SEGMENT_SIZE+17;line++){
+            int quantity = 1+random.nextInt(3);
+            store.add(box(line), quantity);
+            lines.add(new int[]{line, quantity});
+        }
+        store.confirmAll();
+        store.add(box(-1), 4);
+        long boxes=0;
+        for(int[] line : lines){
+            boxes += line[1];
+        }
+        while(boxes>lines.size()/3){
+            long boxNumber = 1+(long)(random.nextDouble()*boxes);
+            int row = store.findConfirmedBox(boxNumber);
+            long before = store.confirmedBoxesBefore(row);
+            assertTrue(before<boxNumber && boxNumber<=before+store.getQuantity(row));
+            store.removeConfirmedBox(row);
+            int index = expectedIndex(lines, boxNumber);
+            lines.get(index)[1]--;
+            if(lines.get(index)[1]==0){
+                lines.remove(index);
+            }
+            boxes--;
+        }
+        assertTrue(store.confirmedSize()<3*OrderStore.SEGMENT_SIZE);
+        int line=0;
+        for(int row=0;row<store.confirmedSize();row++){
+            if(store.getQuantity(row)==0){
+                continue;
+            }
+            int[] expected = lines.get(line++);
+            assertEquals(1+expected[0]/100000.0, store.getLength(row), 0);
+            assertEquals(expected[1], store.getQuantity(row));
+            assertTrue(store.isConfirmed(row));
+        }
+        assertEquals(lines.size(), line);
+        assertEquals(store.confirmedSize()+1, store.size());
+        assertEquals(4, store.getQuantity(store.size()-1));
+        assertFalse(store.isConfirmed(store.size()-1));
+    }
+
+    /**
+     * Method to find the line of the reference list holding a box.
+     * @param lines List of line numbers and quantities.
+     * @param boxNumber long number of the box, starting at 1.
+     * @return int index of the line.
+     */
+    private static int expectedIndex(List<int[]> lines, long boxNumber){
+        for(int index=0;index<lines.size();index++){
+            boxNumber -= lines.get(index)[1];
+            if(boxNumber<=0){
+                return index;
+            }
+        }
+        throw new AssertionError("box out of range");
+    }
+
+    /**
+     * Test of clearConfirmed and clearPreview methods, of class OrderStore.
+     * The preview lines must move to the front and no row past the end of the store
+     * may still refer to the spec of a removed line.
+     */
+    @Test
+    public void testClearReleasesRows(){
+        OrderStore store = new OrderStore();
+        for(int line=0;line<2*OrderStore.SEGMENT_SIZE+5;line++){
+            store.add(box(line), 1);
+        }
+        store.confirmAll();
+        store.add(box(-1), 2);
+        store.add(box(-2), 3);
+        store.clearConfirmed();
+        assertEquals(2, store.size());
+        assertEquals(0, store.confirmedSize());
+        assertEquals(2, store.getQuantity(0));
+        assertEquals(3, store.getQuantity(1));
+        assertEquals(1-2/100000.0, store.getLength(1), 0);
+        assertNoSpecsPastEnd(store);
+        assertEquals((long)OrderStore.SEGMENT_SIZE*OrderStore.BYTES_PER_LINE, store.memoryUsed());
+        store.clearPreview();
+        assertEquals(0, store.size());
+        assertNoSpecsPastEnd(store);
+        store.add(box(7), 1);
+        assertEquals(1, store.size());
+        assertEquals(1+7/100000.0, store.getLength(0), 0);
+    }
+
+    /**
+     * Method to check that every allocated spec slot past the end of a store is empty.
+     * @param store OrderStore to check.
+     */
+    private static void assertNoSpecsPastEnd(OrderStore store){
+        for(int segment=0;segment<store.spec.length;segment++){
+            if(store.spec[segment]==null){
+                continue;
+            }
+            for(int offset=0;offset<OrderStore.SEGMENT_SIZE;offset++){
+                if(segment*OrderStore.SEGMENT_SIZE+offset>=store.size()){
+                    assertNull(store.spec[segment][offset]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of the memory budget of OrderingSystem, which replaced the limit of 5,001 boxes.
+     */
+    @Test
+    public void testOrderBeyondOldLimit() throws Exception{
+        OrderingSystem orders = new OrderingSystem();
+        for(int line=0;line<2*OrderStore.SEGMENT_SIZE;line++){
+            orders.addPreviewOrder(box(line), 10);
+        }
+        orders.confirmOrderBox();
+        assertEquals(20*OrderStore.SEGMENT_SIZE, orders.numOfTotalItems());
+        assertFalse(orders.isTotalOrderCompleted());
+        orders.deleteOrder(15);
+        assertEquals(20*OrderStore.SEGMENT_SIZE-1, orders.numOfTotalItems());
+        assertEquals(9, orders.getOrderStore().getQuantity(1));
+        orders.setMemoryBudget(orders.getOrderStore().memoryNeeded(0));
+        assertFalse(orders.isTotalOrderCompleted());
+        assertFalse(orders.canAdmit(1, 1));
+        orders.setMemoryBudget(orders.getOrderStore().memoryNeeded(0)-1);
+        assertTrue(orders.isTotalOrderCompleted());
+    }
+}
@@ -0,0 +1,87 @@
+package flexbox;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PricingEngineTest {
+
+    /**
+     * Method to price a box the way Box did before the pricing engine, one switch per cost.
+     * @param surfaceArea double surface area of box.
+     * @param grade int grade of cardboard.
+     * @param colours int number of colours.
+     * @param bottom boolean reinforcement bottom.
+     * @param corners boolean reinforcement corners.
+     * @param sealable boolean sealable top.
+     * @return double[] base, colour, bottom, corners, sealable top and total cost.
+     */
+    private static double[] originalCosts(double surfaceArea, int grade, int colours,
+            boolean bottom, boolean corners, boolean sealable){
+        double base;
+        switch(grade){
+            case 1: base = surfaceArea*0.55; break;
+            case 2: base = surfaceArea*0.65; break;
+            case 3: base = surfaceArea*0.82; break;
+            case 4: base = surfaceArea*0.98; break;
+            case 5: base = surfaceArea*1.50; break;
+            default: base = 0;
+        }
+        double colour;
+        switch(colours){
+            case 1: colour = base*0.12; break;
+            case 2: colour = base*0.15; break;
+            default: colour = 0;
+        }
+        double bottomCost = bottom ? base*0.13 : 0;
+        double cornersCost = corners ? base*0.12 : 0;
+        double sealableCost = sealable ? base*0.10 : 0;
+        double cost=0;
+        cost += base;
+        cost += colour;
+        cost += bottomCost;
+        cost += cornersCost;
+        cost += sealableCost;
+        return new double[]{base, colour, bottomCost, cornersCost, sealableCost, cost};
+    }
+
+    /**
+     * Test of breakdown and price methods, of class PricingEngine.
+     * Every combination must give exactly the costs of the original price list.
+     */
+    @Test
+    public void testMatchesOriginalPriceList(){
+        Random random = new Random(42);
+        double[] breakdown = new double[PricingEngine.BREAKDOWN_SIZE];
+        for(int i=0;i<20000;i++){
+            double length = 0.3+random.nextDouble()*9.7;
+            double height = 0.3+random.nextDouble()*9.7;
+            double width = 0.3+random.nextDouble()*9.7;
+            double surfaceArea = (2*length*width)+(2*length*height)+(2*width*height);
+            int grade = 1+random.nextInt(5);
+            int colours = random.nextInt(4);
+            boolean bottom = random.nextBoolean();
+            boolean corners = random.nextBoolean();
+            boolean sealable = random.nextBoolean();
+            double[] expected = originalCosts(surfaceArea, grade, colours, bottom, corners, sealable);
+            int key = PricingEngine.key(grade, colours, bottom, corners, sealable);
+            PricingEngine.breakdown(surfaceArea, key, breakdown);
+            assertArrayEquals(expected, breakdown, 0);
+            assertEquals(expected[PricingEngine.TOTAL], PricingEngine.price(surfaceArea, key), 0);
+            Box box = new Box(length, height, width, grade, colours, bottom, corners, sealable);
+            assertEquals(expected[PricingEngine.TOTAL], box.boxCost(), 0);
+            assertEquals(Money.toPence(expected[PricingEngine.TOTAL]), box.boxCostInPence());
+        }
+    }
+
+    /**
+     * Test of key method, of class PricingEngine.
+     */
+    @Test
+    public void testUnpricedGrades(){
+        assertEquals(-1, PricingEngine.key(0, 1, false, false, false));
+        assertEquals(-1, PricingEngine.key(6, 1, false, false, false));
+        assertEquals(0, PricingEngine.price(12.5, -1), 0);
+        assertEquals(PricingEngine.key(2, 0, true, false, true), PricingEngine.key(2, 3, true, false, true));
+    }
+}